@@ -0,0 +1,125 @@
+package com.yildizkabaran.newsdigestsplash.benchmark;
+
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.Rectangle;
+import java.awt.RenderingHints;
+import java.awt.geom.Ellipse2D;
+import java.awt.geom.Path2D;
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.IOException;
+
+import javax.imageio.ImageIO;
+
+import com.yildizkabaran.newsdigestsplash.view.SplashGeometry;
+import com.yildizkabaran.newsdigestsplash.view.SplashTimeline;
+
+/**
+ * Renders the golden frames of SplashGoldenFrameTest in the tests project, a frame of each of the four phases, from the values of
+ * SplashTimeline and the circle positions of SplashGeometry. The frames are drawn with Java2D the same way SplashRenderer draws them on
+ * a software canvas, the test allows for the small differences of the anti aliased edges. The frames defined here have to be kept in
+ * sync with the test. Run it from the benchmark directory with:
+ * java -cp target/benchmarks.jar com.yildizkabaran.newsdigestsplash.benchmark.GoldenFrameWriter ../tests/assets/golden
+ * @author yildizkabaran
+ *
+ */
+public class GoldenFrameWriter {
+  
+  /** define the splash that is drawn, the same as SplashGoldenFrameTest **/
+  private static final int FRAME_WIDTH = 360; // px
+  private static final int FRAME_HEIGHT = 640; // px
+  private static final float CIRCLE_RADIUS = 12F; // px
+  private static final float ROTATION_RADIUS = 60F; // px
+  private static final long ROTATION_DURATION = 1200; // ms
+  private static final long SPLASH_DURATION = 1200; // ms
+  private static final int SPLASH_BG_COLOR = 0xFFF8F6EC;
+  private static final int[] CIRCLE_COLORS = { 0xFF00E099, 0xFFFF3892, 0xFFFF9600, 0xFF02D1AC, 0xFFFFD200, 0xFF00C6FF };
+  
+  /** define the frame of each phase, the same as SplashGoldenFrameTest **/
+  private static final long ROTATION_ELAPSED = 150; // ms
+  private static final long SPLASH_PHASE_ELAPSED = 100; // ms
+  private static final float SPLASH_ROTATION_ANGLE = (float) (Math.PI / 4); // radians
+  
+  private static final String[] PHASE_NAMES = { "rotation", "merging", "singularity", "expanding" };
+  
+  public static void main(String[] args) throws IOException {
+    if(args.length != 1){
+      System.err.println("usage: GoldenFrameWriter <output directory>");
+      System.exit(1);
+    }
+    File dir = new File(args[0]);
+    if(!dir.isDirectory() && !dir.mkdirs()){
+      throw new IOException("could not create " + dir);
+    }
+    
+    for(int phase=SplashTimeline.PHASE_ROTATION; phase<=SplashTimeline.PHASE_EXPANDING; ++phase){
+      boolean rotation = phase == SplashTimeline.PHASE_ROTATION;
+      long elapsed = rotation ? ROTATION_ELAPSED : SPLASH_PHASE_ELAPSED;
+      BufferedImage frame = renderFrame(phase, elapsed, rotation ? 0F : SPLASH_ROTATION_ANGLE);
+      File file = new File(dir, "splash_" + PHASE_NAMES[phase] + ".png");
+      ImageIO.write(frame, "png", file);
+      System.out.println("wrote " + file);
+    }
+  }
+  
+  /**
+   * Renders the frame of the given phase, restored the same way SplashDrawable.restore restores it
+   * @param phase
+   * @param elapsed in ms
+   * @param rotationAngle
+   * @return
+   */
+  private static BufferedImage renderFrame(int phase, long elapsed, float rotationAngle){
+    float centerX = FRAME_WIDTH / 2F;
+    float centerY = FRAME_HEIGHT / 2F;
+    float diagonalDist = (float) Math.sqrt(FRAME_WIDTH * FRAME_WIDTH + FRAME_HEIGHT * FRAME_HEIGHT) / 2;
+    
+    SplashTimeline timeline = new SplashTimeline();
+    timeline.setCircleRadius(CIRCLE_RADIUS);
+    timeline.setRotationRadius(ROTATION_RADIUS);
+    timeline.setDiagonalDist(diagonalDist);
+    timeline.setRotationDuration(ROTATION_DURATION);
+    timeline.setSplashDuration(SPLASH_DURATION);
+    timeline.restore(phase, elapsed * 1000000L, rotationAngle, false);
+    
+    BufferedImage frame = new BufferedImage(FRAME_WIDTH, FRAME_HEIGHT, BufferedImage.TYPE_INT_ARGB);
+    Graphics2D graphics = frame.createGraphics();
+    graphics.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+    graphics.setRenderingHint(RenderingHints.KEY_STROKE_CONTROL, RenderingHints.VALUE_STROKE_PURE);
+    
+    // the background, with the hole filled as an even-odd path like the path hole mode of software canvases
+    float holeRadius = timeline.getHoleRadius();
+    graphics.setColor(new Color(SPLASH_BG_COLOR, true));
+    if(holeRadius <= 0F){
+      graphics.fillRect(0, 0, FRAME_WIDTH, FRAME_HEIGHT);
+    } else if(holeRadius < diagonalDist){
+      Path2D.Float path = new Path2D.Float(Path2D.WIND_EVEN_ODD);
+      path.append(new Rectangle(0, 0, FRAME_WIDTH, FRAME_HEIGHT), false);
+      path.append(circle(centerX, centerY, holeRadius), false);
+      graphics.fill(path);
+    }
+    
+    if(phase == SplashTimeline.PHASE_ROTATION || phase == SplashTimeline.PHASE_MERGING){
+      SplashGeometry geometry = new SplashGeometry();
+      geometry.setCircleCount(CIRCLE_COLORS.length);
+      geometry.setCenter(centerX, centerY);
+      geometry.update(timeline.getRotationAngle(), timeline.getRotationRadius());
+      for(int i=0; i<CIRCLE_COLORS.length; ++i){
+        graphics.setColor(new Color(CIRCLE_COLORS[i], true));
+        graphics.fill(circle(geometry.getCircleX(i), geometry.getCircleY(i), CIRCLE_RADIUS));
+      }
+    } else if(phase == SplashTimeline.PHASE_SINGULARITY){
+      // the single circle has the color of the last circle
+      graphics.setColor(new Color(CIRCLE_COLORS[CIRCLE_COLORS.length - 1], true));
+      graphics.fill(circle(centerX, centerY, timeline.getSingleCircleRadius()));
+    }
+    
+    graphics.dispose();
+    return frame;
+  }
+  
+  private static Ellipse2D.Float circle(float centerX, float centerY, float radius){
+    return new Ellipse2D.Float(centerX - radius, centerY - radius, radius * 2, radius * 2);
+  }
+}
@@ -0,0 +1,161 @@
+package com.yildizkabaran.newsdigestsplash.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import com.yildizkabaran.newsdigestsplash.view.SplashGeometry;
+import com.yildizkabaran.newsdigestsplash.view.SplashTimeline;
+
+/**
+ * Measures the cost of a frame of the splash model, SplashTimeline.advance followed by the update of the circle positions in
+ * SplashGeometry, for a frame of each phase and for all of the frames of a whole splash. The timeline computes every frame from its
+ * frame time alone, so the frame times of a phase can be stepped through again and again without leaving the phase. Both are run
+ * for a number of circle counts and durations, run with -prof gc for the allocation rate as well
+ * @author yildizkabaran
+ *
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SplashTimelineBenchmark {
+  
+  /** define the splash of the sample app on a 1080x1920 screen **/
+  private static final float ROTATION_RADIUS = 270F; // px
+  private static final float CIRCLE_RADIUS = 54F; // px
+  private static final float CENTER_X = 540F; // px
+  private static final float CENTER_Y = 960F; // px
+  private static final float DIAGONAL_DIST = 1101F; // px
+  private static final int NUM_COLORS = 6; // the circle colors of the sample app
+  private static final long FRAME_INTERVAL_NANOS = 16666667L; // 60 fps
+  
+  /**
+   * The parameters that both kinds of benchmark are run for. The sample app has a circle for each of its colors, larger counts are
+   * laid out as particles of those colors
+   */
+  @State(Scope.Thread)
+  public static class ModelState {
+    
+    @Param({ "6", "60", "600" })
+    public int circleCount;
+    
+    @Param({ "600", "1200" })
+    public long rotationDuration; // ms
+    
+    @Param({ "600", "1200" })
+    public long splashDuration; // ms
+    
+    protected SplashTimeline mTimeline;
+    protected SplashGeometry mGeometry;
+    
+    @Setup
+    public void setUpModel(){
+      mTimeline = new SplashTimeline();
+      mTimeline.setRotationRadius(ROTATION_RADIUS);
+      mTimeline.setCircleRadius(CIRCLE_RADIUS);
+      mTimeline.setDiagonalDist(DIAGONAL_DIST);
+      mTimeline.setRotationDuration(rotationDuration);
+      mTimeline.setSplashDuration(splashDuration);
+      mTimeline.reset();
+    
+      mGeometry = new SplashGeometry();
+      mGeometry.setCircleCount(Math.min(circleCount, NUM_COLORS));
+      mGeometry.setParticlesPerColor(circleCount / mGeometry.getCircleCount());
+      mGeometry.setCenter(CENTER_X, CENTER_Y);
+    }
+  }
+  
+  /**
+   * A model held in one of the phases
+   */
+  @State(Scope.Thread)
+  public static class PhaseState extends ModelState {
+    
+    @Param({ "" + SplashTimeline.PHASE_ROTATION, "" + SplashTimeline.PHASE_MERGING, "" + SplashTimeline.PHASE_SINGULARITY,
+        "" + SplashTimeline.PHASE_EXPANDING })
+    public int phase;
+    
+    private long mPhaseDurationNanos;
+    private long mFrameTimeNanos;
+    
+    @Setup
+    public void setUp(){
+      mTimeline.restore(phase, 0, 0F, false);
+      // the first frame marks the start of the phase at time 0
+      mTimeline.advance(0);
+      mPhaseDurationNanos = phase == SplashTimeline.PHASE_ROTATION ? rotationDuration * 1000000L : mTimeline.getPhaseDurationNanos();
+      mFrameTimeNanos = 0;
+    }
+  }
+  
+  /**
+   * A single frame of the phase, the frame times go around the phase without reaching its end
+   */
+  @Benchmark
+  public void advancePhaseFrame(PhaseState state, Blackhole blackhole){
+    state.mFrameTimeNanos += FRAME_INTERVAL_NANOS;
+    if(state.mFrameTimeNanos >= state.mPhaseDurationNanos){
+      state.mFrameTimeNanos -= state.mPhaseDurationNanos;
+    }
+    blackhole.consume(state.mTimeline.advance(state.mFrameTimeNanos));
+    consumeFrame(state, blackhole);
+  }
+  
+  /**
+   * All of the frames of a splash, from a single frame of rotation through to the end of the splash
+   */
+  @Benchmark
+  public int advanceWholeSplash(ModelState state, Blackhole blackhole){
+    SplashTimeline timeline = state.mTimeline;
+    timeline.reset();
+    timeline.advance(0);
+    timeline.startSplash();
+    long frameTimeNanos = FRAME_INTERVAL_NANOS;
+    int frames = 1;
+    while(timeline.advance(frameTimeNanos)){
+      consumeFrame(state, blackhole);
+      frameTimeNanos += FRAME_INTERVAL_NANOS;
+      frames++;
+    }
+    return frames;
+  }
+  
+  /**
+   * Reads all of the values that a frame draws with, the circle positions are only drawn in the rotation and merging phases
+   * @param state
+   * @param blackhole
+   */
+  private static void consumeFrame(ModelState state, Blackhole blackhole){
+    SplashTimeline timeline = state.mTimeline;
+    int phase = timeline.getPhase();
+    if(phase == SplashTimeline.PHASE_ROTATION || phase == SplashTimeline.PHASE_MERGING){
+      SplashGeometry geometry = state.mGeometry;
+      geometry.update(timeline.getRotationAngle(), timeline.getRotationRadius());
+      if(geometry.isParticleMode()){
+        blackhole.consume(geometry.getParticlePoints());
+      } else {
+        int numCircles = geometry.getCircleCount();
+        for(int i=0; i<numCircles; ++i){
+          blackhole.consume(geometry.getCircleX(i));
+          blackhole.consume(geometry.getCircleY(i));
+        }
+      }
+    }
+    blackhole.consume(timeline.getSingleCircleRadius());
+    blackhole.consume(timeline.getHoleRadius());
+    blackhole.consume(timeline.getCompletionFraction());
+  }
+}
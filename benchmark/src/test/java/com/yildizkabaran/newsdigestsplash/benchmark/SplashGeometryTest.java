@@ -0,0 +1,68 @@
+package com.yildizkabaran.newsdigestsplash.benchmark;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import com.yildizkabaran.newsdigestsplash.view.SplashGeometry;
+
+/**
+ * Checks the circle positions that SplashGeometry finds from its angle tables against the positions computed directly with sin and
+ * cos, for the ring and for the particles
+ * @author yildizkabaran
+ *
+ */
+public class SplashGeometryTest {
+  
+  /** define the ring of the sample app on a 1080x1920 screen **/
+  private static final float CENTER_X = 540F; // px
+  private static final float CENTER_Y = 960F; // px
+  private static final float ROTATION_RADIUS = 270F; // px
+  private static final int NUM_COLORS = 6;
+  private static final float ROTATION_ANGLE = 1.3F; // radians
+  
+  private static final float POSITION_TOLERANCE = 0.01F; // px
+  
+  @Test
+  public void testRingMatchesTheDirectAngles(){
+    SplashGeometry geometry = createGeometry(1);
+    geometry.update(ROTATION_ANGLE, ROTATION_RADIUS);
+    for(int i=0; i<NUM_COLORS; ++i){
+      double angle = ROTATION_ANGLE + i * 2 * Math.PI / NUM_COLORS;
+      assertEquals(CENTER_X + ROTATION_RADIUS * Math.sin(angle), geometry.getCircleX(i), POSITION_TOLERANCE);
+      assertEquals(CENTER_Y - ROTATION_RADIUS * Math.cos(angle), geometry.getCircleY(i), POSITION_TOLERANCE);
+    }
+  }
+  
+  @Test
+  public void testParticlesStayInsideTheDisc(){
+    int particlesPerColor = 100;
+    SplashGeometry geometry = createGeometry(particlesPerColor);
+    geometry.update(ROTATION_ANGLE, ROTATION_RADIUS);
+    float[] points = geometry.getParticlePoints();
+    assertEquals(NUM_COLORS * particlesPerColor * 2, points.length);
+    for(int i=0; i<points.length; i+=2){
+      double distance = Math.hypot(points[i] - CENTER_X, points[i + 1] - CENTER_Y);
+      assertTrue("particle " + i / 2 + " is " + distance + " px from the center", distance <= ROTATION_RADIUS + POSITION_TOLERANCE);
+    }
+  }
+  
+  @Test
+  public void testMergedCirclesMeetInTheCenter(){
+    SplashGeometry geometry = createGeometry(1);
+    geometry.update(ROTATION_ANGLE, 0F);
+    for(int i=0; i<NUM_COLORS; ++i){
+      assertEquals(CENTER_X, geometry.getCircleX(i), 0F);
+      assertEquals(CENTER_Y, geometry.getCircleY(i), 0F);
+    }
+  }
+  
+  private static SplashGeometry createGeometry(int particlesPerColor){
+    SplashGeometry geometry = new SplashGeometry();
+    geometry.setCircleCount(NUM_COLORS);
+    geometry.setParticlesPerColor(particlesPerColor);
+    geometry.setCenter(CENTER_X, CENTER_Y);
+    return geometry;
+  }
+}
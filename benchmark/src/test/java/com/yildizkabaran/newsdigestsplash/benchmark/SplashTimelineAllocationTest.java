@@ -0,0 +1,163 @@
+package com.yildizkabaran.newsdigestsplash.benchmark;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.lang.management.ManagementFactory;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import com.sun.management.ThreadMXBean;
+import com.yildizkabaran.newsdigestsplash.view.SplashGeometry;
+import com.yildizkabaran.newsdigestsplash.view.SplashTimeline;
+
+/**
+ * Runs simulated splashes through SplashTimeline and the circle positions of SplashGeometry, for the ring and for particles, and
+ * checks the bytes that every frame allocates against a budget, with the per thread allocation counter of the JVM. The frames of the
+ * splash advance the timeline and update the positions on every display frame, so they should not allocate at all. The drawing
+ * itself is checked by SplashDrawAllocationTest in the tests project
+ * @author yildizkabaran
+ *
+ */
+public class SplashTimelineAllocationTest {
+  
+  /** define the splash of the sample app on a 1080x1920 screen **/
+  private static final float ROTATION_RADIUS = 270F; // px
+  private static final float CIRCLE_RADIUS = 54F; // px
+  private static final float DIAGONAL_DIST = 1101F; // px
+  private static final float CENTER_X = 540F; // px
+  private static final float CENTER_Y = 960F; // px
+  private static final int NUM_COLORS = 6;
+  private static final int PARTICLES_PER_COLOR = 100;
+  private static final long ROTATION_DURATION = 1200; // ms
+  private static final long SPLASH_DURATION = 1200; // ms
+  private static final long FRAME_INTERVAL_NANOS = 16666667L; // 60 fps
+  private static final int ROTATION_FRAMES = 90; // frames before the splash is started
+  
+  /** define the budget **/
+  private static final long FRAME_ALLOCATION_BUDGET = 0; // bytes
+  // the frames are first run without counting, so that the counts do not include the class loading and compiling of the first runs
+  private static final int WARM_UP_SPLASHES = 200;
+  
+  private ThreadMXBean mThreadBean;
+  private long mThreadId;
+  private long mCounterOverheadBytes;
+  private SplashTimeline mTimeline;
+  private SplashGeometry mRingGeometry;
+  private SplashGeometry mParticleGeometry;
+  // the values of every frame are added up here, so that reading them is not optimized away
+  private float mValueSink;
+  
+  @Before
+  public void setUp(){
+    mThreadBean = (ThreadMXBean) ManagementFactory.getThreadMXBean();
+    mThreadBean.setThreadAllocatedMemoryEnabled(true);
+    mThreadId = Thread.currentThread().getId();
+    
+    mTimeline = new SplashTimeline();
+    mTimeline.setRotationRadius(ROTATION_RADIUS);
+    mTimeline.setCircleRadius(CIRCLE_RADIUS);
+    mTimeline.setDiagonalDist(DIAGONAL_DIST);
+    mTimeline.setRotationDuration(ROTATION_DURATION);
+    mTimeline.setSplashDuration(SPLASH_DURATION);
+    mRingGeometry = createGeometry(1);
+    mParticleGeometry = createGeometry(PARTICLES_PER_COLOR);
+    
+    for(int i=0; i<WARM_UP_SPLASHES; ++i){
+      runSplash(null);
+    }
+    mCounterOverheadBytes = measureCounterOverhead();
+  }
+  
+  @Test
+  public void testFramesStayWithinBudget(){
+    long[] frameBytes = new long[ROTATION_FRAMES + 2 * (int) (SPLASH_DURATION * 1000000L / FRAME_INTERVAL_NANOS)];
+    int frames = runSplash(frameBytes);
+    assertTrue("only " + frames + " frames were run", frames > ROTATION_FRAMES);
+    // the first frame of a splash may still set up what the later ones reuse
+    for(int i=1; i<frames; ++i){
+      assertTrue("frame " + i + " allocated " + frameBytes[i] + " bytes", frameBytes[i] <= FRAME_ALLOCATION_BUDGET);
+    }
+  }
+  
+  @Test
+  public void testRestartedSplashStaysWithinBudget(){
+    long[] frameBytes = new long[ROTATION_FRAMES + 2 * (int) (SPLASH_DURATION * 1000000L / FRAME_INTERVAL_NANOS)];
+    runSplash(frameBytes);
+    // a second cycle reuses the same timeline, not even its first frame allocates
+    int frames = runSplash(frameBytes);
+    for(int i=0; i<frames; ++i){
+      assertTrue("frame " + i + " allocated " + frameBytes[i] + " bytes", frameBytes[i] <= FRAME_ALLOCATION_BUDGET);
+    }
+  }
+  
+  @Test
+  public void testSplashReachesTheEnd(){
+    runSplash(null);
+    assertEquals(SplashTimeline.PHASE_DONE, mTimeline.getPhase());
+    assertEquals(1F, mTimeline.getCompletionFraction(), 0F);
+  }
+  
+  /**
+   * Runs a whole splash on a simulated clock, from the start of the rotation to the end of the expanding phase, and returns the
+   * number of frames. The bytes allocated by each frame are put into frameBytes if it is given
+   * @param frameBytes
+   * @return
+   */
+  private int runSplash(long[] frameBytes){
+    mTimeline.reset();
+    long frameTimeNanos = 0;
+    int frames = 0;
+    boolean running = true;
+    while(running){
+      if(frames == ROTATION_FRAMES){
+        mTimeline.startSplash();
+      }
+      if(frameBytes != null){
+        long startBytes = mThreadBean.getThreadAllocatedBytes(mThreadId);
+        running = advanceFrame(frameTimeNanos);
+        frameBytes[frames] = mThreadBean.getThreadAllocatedBytes(mThreadId) - startBytes - mCounterOverheadBytes;
+      } else {
+        running = advanceFrame(frameTimeNanos);
+      }
+      frameTimeNanos += FRAME_INTERVAL_NANOS;
+      frames++;
+    }
+    return frames;
+  }
+  
+  private static SplashGeometry createGeometry(int particlesPerColor){
+    SplashGeometry geometry = new SplashGeometry();
+    geometry.setCircleCount(NUM_COLORS);
+    geometry.setParticlesPerColor(particlesPerColor);
+    geometry.setCenter(CENTER_X, CENTER_Y);
+    return geometry;
+  }
+  
+  /**
+   * Advances the timeline, updates the circle positions and reads all of the values that a frame draws with
+   * @param frameTimeNanos
+   * @return
+   */
+  private boolean advanceFrame(long frameTimeNanos){
+    boolean running = mTimeline.advance(frameTimeNanos);
+    mRingGeometry.update(mTimeline.getRotationAngle(), mTimeline.getRotationRadius());
+    mParticleGeometry.update(mTimeline.getRotationAngle(), mTimeline.getRotationRadius());
+    mValueSink += mTimeline.getSingleCircleRadius() + mTimeline.getHoleRadius() + mTimeline.getCompletionFraction()
+        + mRingGeometry.getCircleX(0) + mRingGeometry.getCircleY(NUM_COLORS - 1) + mParticleGeometry.getParticlePoints()[0];
+    return running;
+  }
+  
+  /**
+   * The bytes that reading the allocation counter twice allocates by itself, if any
+   */
+  private long measureCounterOverhead(){
+    long overhead = Long.MAX_VALUE;
+    for(int i=0; i<100; ++i){
+      long startBytes = mThreadBean.getThreadAllocatedBytes(mThreadId);
+      overhead = Math.min(overhead, mThreadBean.getThreadAllocatedBytes(mThreadId) - startBytes);
+    }
+    return overhead;
+  }
+}
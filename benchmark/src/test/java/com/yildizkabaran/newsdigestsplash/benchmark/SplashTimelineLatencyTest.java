@@ -0,0 +1,125 @@
+package com.yildizkabaran.newsdigestsplash.benchmark;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import com.yildizkabaran.newsdigestsplash.view.SplashTimeline;
+
+/**
+ * Checks the time from the data being handed over to the first frame of the expanding phase, which is when the content starts to
+ * show through the hole, on a simulated clock. The frame times are given to SplashTimeline directly, so the results are exact
+ * @author yildizkabaran
+ *
+ */
+public class SplashTimelineLatencyTest {
+  
+  /** define the splash of the sample app **/
+  private static final long ROTATION_DURATION = 1200; // ms
+  private static final long SPLASH_DURATION = 1200; // ms
+  private static final long FRAME_INTERVAL_NANOS = 16666667L; // 60 fps
+  private static final int ROTATION_FRAMES = 30; // frames before the data is ready
+  private static final long DATA_READY_OFFSET_NANOS = 5000000L; // the data is ready this long after the last rotation frame
+  
+  private static final long NANOS_PER_MS = 1000000L;
+  
+  private SplashTimeline mTimeline;
+  private long mPhaseDurationNanos;
+  
+  @Before
+  public void setUp(){
+    mTimeline = new SplashTimeline();
+    mTimeline.setRotationRadius(270F);
+    mTimeline.setCircleRadius(54F);
+    mTimeline.setDiagonalDist(1101F);
+    mTimeline.setRotationDuration(ROTATION_DURATION);
+    mTimeline.setSplashDuration(SPLASH_DURATION);
+    mTimeline.reset();
+    mPhaseDurationNanos = mTimeline.getPhaseDurationNanos();
+  }
+  
+  @Test
+  public void testContentShowsAfterTwoPhases(){
+    long latencyNanos = measureContentLatencyNanos();
+    // the merge starts on the first frame after the data is ready, then the merging and singularity phases run in full
+    long expectedNanos = frameTimeNanos(ROTATION_FRAMES + framesCovering(2 * mPhaseDurationNanos)) - dataReadyTimeNanos();
+    assertEquals(expectedNanos, latencyNanos);
+    assertTrue(latencyNanos >= 2 * mPhaseDurationNanos);
+    assertTrue(latencyNanos < 2 * mPhaseDurationNanos + 2 * FRAME_INTERVAL_NANOS);
+  }
+  
+  @Test
+  public void testLowLatencySavesAFrame(){
+    long latencyNanos = measureContentLatencyNanos();
+    setUp();
+    mTimeline.setLowLatency(true);
+    long lowLatencyNanos = measureContentLatencyNanos();
+    assertEquals(latencyNanos - FRAME_INTERVAL_NANOS, lowLatencyNanos);
+    // the merge started from the last rotation frame, so the content shows within a frame of the two phases
+    assertTrue(lowLatencyNanos < 2 * mPhaseDurationNanos + FRAME_INTERVAL_NANOS);
+  }
+  
+  @Test
+  public void testLowLatencyKeepsTheRotationAngle(){
+    mTimeline.setLowLatency(true);
+    for(int i=0; i<ROTATION_FRAMES; ++i){
+      mTimeline.advance(frameTimeNanos(i));
+    }
+    float rotationAngle = mTimeline.getRotationAngle();
+    mTimeline.startSplash();
+    mTimeline.advance(frameTimeNanos(ROTATION_FRAMES));
+    assertEquals(SplashTimeline.PHASE_MERGING, mTimeline.getPhase());
+    assertEquals(rotationAngle, mTimeline.getRotationAngle(), 0F);
+    // a frame into the merge already
+    assertEquals((float) FRAME_INTERVAL_NANOS / mPhaseDurationNanos, mTimeline.getPhaseFraction(), 1e-6F);
+  }
+  
+  @Test
+  public void testMinRotationDelaysTheContent(){
+    mTimeline.setMinRotationDuration(ROTATION_DURATION);
+    long latencyNanos = measureContentLatencyNanos();
+    // the merge starts exactly when the minimum rotation is done, the time it waited for is part of the latency
+    long mergeStartNanos = ROTATION_DURATION * NANOS_PER_MS;
+    long expectedNanos = frameTimeNanos(framesCovering(mergeStartNanos + 2 * mPhaseDurationNanos)) - dataReadyTimeNanos();
+    assertEquals(expectedNanos, latencyNanos);
+  }
+  
+  /**
+   * Rotates for a number of frames, starts the splash when the data is ready in between two frames, and returns the time from then
+   * to the first frame of the expanding phase
+   * @return
+   */
+  private long measureContentLatencyNanos(){
+    int frame = 0;
+    for(; frame<ROTATION_FRAMES; ++frame){
+      mTimeline.advance(frameTimeNanos(frame));
+    }
+    mTimeline.startSplash();
+    while(mTimeline.advance(frameTimeNanos(frame))){
+      if(mTimeline.getPhase() == SplashTimeline.PHASE_EXPANDING){
+        return frameTimeNanos(frame) - dataReadyTimeNanos();
+      }
+      frame++;
+    }
+    throw new AssertionError("the splash ended without expanding");
+  }
+  
+  private static long frameTimeNanos(int frame){
+    return frame * FRAME_INTERVAL_NANOS;
+  }
+  
+  private static long dataReadyTimeNanos(){
+    return frameTimeNanos(ROTATION_FRAMES - 1) + DATA_READY_OFFSET_NANOS;
+  }
+  
+  /**
+   * The number of frames it takes for the frame times to reach the given duration
+   * @param durationNanos
+   * @return
+   */
+  private static int framesCovering(long durationNanos){
+    return (int) ((durationNanos + FRAME_INTERVAL_NANOS - 1) / FRAME_INTERVAL_NANOS);
+  }
+}
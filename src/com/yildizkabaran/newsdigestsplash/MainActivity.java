@@ -1,80 +1,201 @@
 package com.yildizkabaran.newsdigestsplash;
 
-import java.util.Random;
+import java.io.IOException;
 
 import android.app.Activity;
 import android.content.Context;
 import android.os.Bundle;
-import android.os.Handler;
 import android.util.Log;
-import android.view.View;
 import android.view.ViewGroup;
 import android.widget.FrameLayout;
 
+import com.yildizkabaran.newsdigestsplash.content.CachingContentSource;
+import com.yildizkabaran.newsdigestsplash.content.ContentCache;
+import com.yildizkabaran.newsdigestsplash.content.ContentLoader;
+import com.yildizkabaran.newsdigestsplash.content.ContentLoader.ILoadListener;
+import com.yildizkabaran.newsdigestsplash.content.DigestContent;
+import com.yildizkabaran.newsdigestsplash.content.FakeContentSource;
 import com.yildizkabaran.newsdigestsplash.view.ContentView;
+import com.yildizkabaran.newsdigestsplash.view.SplashTrace;
 import com.yildizkabaran.newsdigestsplash.view.SplashView;
 import com.yildizkabaran.newsdigestsplash.view.SplashView.ISplashListener;
 
 public class MainActivity extends Activity {
-
+  
   private static final String TAG = "MainActivity";
   private static final boolean DO_XML = false;
   
+  /** the startup milestones of the app, marked along with the ones of the splash **/
+  private static final String MILESTONE_ACTIVITY_CREATED = "ActivityCreated"; // onCreate is done
+  private static final String MILESTONE_CONTENT_VIEW_CREATED = "ContentViewCreated"; // the content view is created and added
+  
   private ViewGroup mMainView;
   private SplashView mSplashView;
-  private View mContentView;
-  private Handler mHandler = new Handler();
+  private ContentView mContentView;
+  private ContentCache mContentCache;
+  private ContentLoader mContentLoader;
+  private DigestContent mContent;
+  
+  /**
+   * What is handed over to the next instance when the activity is recreated for a configuration change, so that a load in
+   * progress and content that is already showing are not thrown away
+   */
+  private static class RetainedState {
+    ContentLoader contentLoader;
+    DigestContent content;
+    boolean contentShown;
+    boolean splashEnded;
+  }
+  
+  private final ILoadListener mLoadListener = new ILoadListener(){
+    @Override
+    public void onContentLoaded(DigestContent content){
+      if(mContentView == null){
+        onLoadingDataEnded(content);
+      } else {
+        onContentRefreshed(content);
+      }
+    }
+    
+    @Override
+    public void onContentFailed(IOException e){
+      if(BuildConfig.DEBUG){
+        Log.w(TAG, "loading data failed", e);
+      }
+      // end the splash anyway so that the user is not stuck looking at it, unless the cached content is already showing
+      if(mContentView == null){
+        onLoadingDataEnded(null);
+      }
+    }
+  };
   
   @Override
   protected void onCreate(Bundle savedInstanceState) {
     super.onCreate(savedInstanceState);
-    
-    // change the DO_XML variable to switch between code and xml
-    if(DO_XML){
-      // inflate the view from XML and then get a reference to it
-      setContentView(R.layout.activity_main);
-      mMainView = (ViewGroup) findViewById(R.id.main_view);
-      mSplashView = (SplashView) findViewById(R.id.splash_view);
-    } else {
-      // create the main view
-      mMainView = new FrameLayout(getApplicationContext());
+    SplashTrace.beginSection("MainActivity.onCreate");
+    try {
+      // change the DO_XML variable to switch between code and xml
+      if(DO_XML){
+        // inflate the view from XML and then get a reference to it
+        setContentView(R.layout.activity_main);
+        mMainView = (ViewGroup) findViewById(R.id.main_view);
+        mSplashView = (SplashView) findViewById(R.id.splash_view);
+      } else {
+        // create the main view
+        mMainView = new FrameLayout(getApplicationContext());
+        
+        // create the splash view, with the activity as its context so that it can take off the window background while it covers it
+        mSplashView = new SplashView(this);
+        mSplashView.setId(R.id.splash_view); // the view needs an id to save its animation state when the activity is recreated
+        mSplashView.setRemoveFromParentOnEnd(true); // remove the SplashView from MainView once animation is completed
+        mSplashView.setSplashBackgroundColor(getResources().getColor(R.color.splash_bg)); // the background color of the view
+        mSplashView.setRotationRadius(getResources().getDimensionPixelOffset(R.dimen.splash_rotation_radius)); // radius of the big circle that the little circles will rotate on
+        mSplashView.setCircleRadius(getResources().getDimensionPixelSize(R.dimen.splash_circle_radius)); // radius of each circle
+        mSplashView.setRotationDuration(getResources().getInteger(R.integer.splash_rotation_duration)); // time for one rotation to be completed by the small circles
+        mSplashView.setSplashDuration(getResources().getInteger(R.integer.splash_duration)); // total time taken for the circles to merge together and disappear
+        mSplashView.setCircleColors(getResources().getIntArray(R.array.splash_circle_colors)); // the colors of each circle in order
+        mSplashView.setProgressUpdateDelta(0.25F); // only hear of the progress every quarter of the splash, instead of on every frame
+        mSplashView.setLowLatency(true); // start the splash as soon as the data is ready, without waiting for another frame
+        
+        // add splash view to the parent view
+        mMainView.addView(mSplashView);
+        setContentView(mMainView);
+      }
+      
+      // the themed window background only stands in for the splash until the window draws for the first time, and that first draw
+      // already has the splash on top of it. From here on the window background would only show the frozen ring through the hole,
+      // or under the content, as one more layer to draw, so leave it as the plain splash color
+      getWindow().setBackgroundDrawableResource(R.color.splash_bg);
       
-      // create the splash view
-      mSplashView = new SplashView(getApplicationContext());
-      mSplashView.setRemoveFromParentOnEnd(true); // remove the SplashView from MainView once animation is completed
-      mSplashView.setSplashBackgroundColor(getResources().getColor(R.color.splash_bg)); // the background color of the view
-      mSplashView.setRotationRadius(getResources().getDimensionPixelOffset(R.dimen.splash_rotation_radius)); // radius of the big circle that the little circles will rotate on
-      mSplashView.setCircleRadius(getResources().getDimensionPixelSize(R.dimen.splash_circle_radius)); // radius of each circle
-      mSplashView.setRotationDuration(getResources().getInteger(R.integer.splash_rotation_duration)); // time for one rotation to be completed by the small circles
-      mSplashView.setSplashDuration(getResources().getInteger(R.integer.splash_duration)); // total time taken for the circles to merge together and disappear
-      mSplashView.setCircleColors(getResources().getIntArray(R.array.splash_circle_colors)); // the colors of each circle in order
+      mContentCache = new ContentCache(getApplicationContext());
+      
+      // if the activity was recreated, pick up where the previous instance left off, the splash view restores its own animation
+      RetainedState retainedState = (RetainedState) getLastNonConfigurationInstance();
+      if(retainedState != null){
+        mContentLoader = retainedState.contentLoader;
+        mContentLoader.setListener(mLoadListener);
+        if(retainedState.splashEnded){
+          // the splash is not played again
+          mMainView.removeView(mSplashView);
+          mSplashView = null;
+        }
+        if(retainedState.contentShown){
+          onLoadingDataEnded(retainedState.content);
+        }
+        return;
+      }
       
-      // add splash view to the parent view
-      mMainView.addView(mSplashView);
-      setContentView(mMainView);
+      // show the content of the last launch right away if we have it, the splash still shows one full rotation before it ends
+      DigestContent cachedContent = mContentCache.read();
+      if(cachedContent != null){
+        mSplashView.setMinRotationDuration(getResources().getInteger(R.integer.splash_rotation_duration));
+        onLoadingDataEnded(cachedContent);
+      }
+      
+      // pretend like we are loading data, this refreshes the cached content if there was any
+      startLoadingData();
+    } finally {
+      SplashTrace.endSection();
+      SplashTrace.mark(MILESTONE_ACTIVITY_CREATED);
     }
-    
-    // pretend like we are loading data
-    startLoadingData();
+  }
+  
+  @Override
+  public Object onRetainNonConfigurationInstance(){
+    RetainedState retainedState = new RetainedState();
+    retainedState.contentLoader = mContentLoader;
+    retainedState.content = mContent;
+    retainedState.contentShown = mContentView != null;
+    retainedState.splashEnded = mSplashView == null;
+    return retainedState;
+  }
+  
+  @Override
+  protected void onDestroy(){
+    super.onDestroy();
+    // the next instance takes over the loader when the activity is only being recreated
+    if(isChangingConfigurations()){
+      return;
+    }
+    // stop loading, the result would have nowhere to go
+    mContentLoader.shutdown();
   }
   
   private void startLoadingData(){
-    // finish "loading data" in a random time between 1 and 3 seconds
-    Random random = new Random();
-    mHandler.postDelayed(new Runnable(){
-      @Override
-      public void run(){
-        onLoadingDataEnded();
-      }
-    }, 1000 + random.nextInt(2000));
+    // "load data" on a background thread in a random time between 1 and 3 seconds
+    // whatever is loaded is also cached for the next launch
+    mContentLoader = new ContentLoader(new CachingContentSource(new FakeContentSource(1000, 3000), mContentCache));
+    mContentLoader.load(mLoadListener);
   }
   
-  private void onLoadingDataEnded(){
+  private void onContentRefreshed(DigestContent content){
+    // only swap the image if it actually changed, otherwise it would be decoded again for nothing
+    DigestContent current = mContentView.getContent();
+    if(current == null || current.getImageResId() != content.getImageResId()){
+      mContentView.setContent(content);
+    }
+    mContent = content;
+  }
+  
+  private void onLoadingDataEnded(DigestContent content){
+    // the content latency of the splash counts from here, so that creating the content view is included
+    if(mSplashView != null){
+      mSplashView.markDataReady();
+    }
     Context context = getApplicationContext();
+    mContent = content;
     // now that our data is loaded we can initialize the content view
-    mContentView = new ContentView(context);
+    SplashTrace.beginSection("MainActivity.createContentView");
+    mContentView = new ContentView(context, content);
     // add the content view to the background
     mMainView.addView(mContentView, 0);
+    SplashTrace.endSection();
+    SplashTrace.mark(MILESTONE_CONTENT_VIEW_CREATED);
+    
+    // the splash is already over if the activity was recreated after it ended
+    if(mSplashView == null){
+      return;
+    }
     
     // start the splash animation
     mSplashView.splashAndDisappear(new ISplashListener(){
@@ -88,17 +209,17 @@ public class MainActivity extends Activity {
       
       @Override
       public void onUpdate(float completionFraction){
-        // log animation update events
+        // log animation update events, these are throttled by the splash view
         if(BuildConfig.DEBUG){
-          Log.d(TAG, "splash at " + String.format("%.2f", (completionFraction * 100)) + "%");
+          Log.d(TAG, "splash at " + (int) (completionFraction * 100) + "%");
         }
       }
       
       @Override
       public void onEnd(){
-        // log the animation end event
+        // log the animation end event, along with how long the content took to show once the data was ready
         if(BuildConfig.DEBUG){
-          Log.d(TAG, "splash ended");
+          Log.d(TAG, "splash ended, content showed " + mSplashView.getContentLatencyMs() + " ms after the data was ready");
         }
         // free the view so that it turns into garbage
         mSplashView = null;
@@ -0,0 +1,33 @@
+package com.yildizkabaran.newsdigestsplash.content;
+
+import java.util.concurrent.ThreadFactory;
+
+import android.os.Process;
+
+/**
+ * Creates threads with background priority, so that the work done on them does not compete with the UI thread
+ * @author yildizkabaran
+ *
+ */
+public class BackgroundThreadFactory implements ThreadFactory {
+  
+  private final String mThreadName;
+  
+  /**
+   * @param threadName the name of the created threads, as shown in traces
+   */
+  public BackgroundThreadFactory(String threadName){
+    mThreadName = threadName;
+  }
+  
+  @Override
+  public Thread newThread(final Runnable runnable){
+    return new Thread(new Runnable(){
+      @Override
+      public void run(){
+        Process.setThreadPriority(Process.THREAD_PRIORITY_BACKGROUND);
+        runnable.run();
+      }
+    }, mThreadName);
+  }
+}
@@ -0,0 +1,43 @@
+package com.yildizkabaran.newsdigestsplash.content;
+
+import java.io.IOException;
+
+import android.util.Log;
+
+import com.yildizkabaran.newsdigestsplash.BuildConfig;
+
+/**
+ * A content source that loads from another source and writes whatever it loads to a ContentCache, so that the next launch can
+ * start from it. The write happens on the loader thread, and failing to write does not fail the load
+ * @author yildizkabaran
+ *
+ */
+public class CachingContentSource implements ContentSource {
+
+  private static final String TAG = "CachingContentSource";
+  
+  private final ContentSource mSource;
+  private final ContentCache mCache;
+  
+  /**
+   * @param source the source to load from
+   * @param cache the cache to store the loaded content in
+   */
+  public CachingContentSource(ContentSource source, ContentCache cache){
+    mSource = source;
+    mCache = cache;
+  }
+  
+  @Override
+  public DigestContent load() throws IOException {
+    DigestContent content = mSource.load();
+    try {
+      mCache.write(content);
+    } catch(IOException e){
+      if(BuildConfig.DEBUG){
+        Log.w(TAG, "Could not cache the loaded content", e);
+      }
+    }
+    return content;
+  }
+}
@@ -0,0 +1,169 @@
+package com.yildizkabaran.newsdigestsplash.content;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.BufferUnderflowException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+
+import android.content.Context;
+import android.content.res.Resources;
+import android.util.Log;
+
+import com.yildizkabaran.newsdigestsplash.BuildConfig;
+
+/**
+ * Keeps the last loaded digest content on disk so that a repeat launch can show it right away. The cache is a single small binary
+ * file that is read through a memory mapping, which keeps the read on the UI thread down to a few page faults. The file is laid out
+ * as follows, in big endian:
+ * <pre>
+ * int   magic, FILE_MAGIC
+ * short format version, FILE_VERSION
+ * long  load time of the content, in ms
+ * short length of the image name in bytes
+ * byte[] entry name of the image drawable, in UTF-8
+ * </pre>
+ * The image is stored by its entry name instead of its resource id, because ids are not stable from one build of the app to the next.
+ * Writes go to a temporary file that replaces the cache file once it is complete, so a reader never sees a partial file.
+ * @author yildizkabaran
+ *
+ */
+public class ContentCache {
+  
+  private static final String TAG = "ContentCache";
+  
+  public static final String DEFAULT_FILE_NAME = "digest_content.bin";
+  
+  private static final int FILE_MAGIC = 0x4E444331; // "NDC1"
+  private static final short FILE_VERSION = 1;
+  private static final int MAX_FILE_SIZE = 4096; // anything larger is not a file we wrote
+  private static final String CHARSET = "UTF-8";
+  private static final String IMAGE_RES_TYPE = "drawable";
+  
+  private final Resources mResources;
+  private final String mPackageName;
+  private final File mFile;
+  
+  /**
+   * Creates a cache in the cache directory of the app
+   * @param context
+   */
+  public ContentCache(Context context){
+    this(context, new File(context.getCacheDir(), DEFAULT_FILE_NAME));
+  }
+  
+  /**
+   * Creates a cache that is kept in the given file
+   * @param context
+   * @param file
+   */
+  public ContentCache(Context context, File file){
+    mResources = context.getResources();
+    mPackageName = context.getPackageName();
+    mFile = file;
+  }
+  
+  /**
+   * Reads the cached content. Returns null if nothing is cached, or if the cached file is unreadable or refers to an image that no
+   * longer exists
+   * @return
+   */
+  public DigestContent read(){
+    if(!mFile.isFile()){
+      return null;
+    }
+    
+    RandomAccessFile file = null;
+    try {
+      file = new RandomAccessFile(mFile, "r");
+      long size = file.length();
+      if(size <= 0 || size > MAX_FILE_SIZE){
+        return null;
+      }
+    
+      MappedByteBuffer buffer = file.getChannel().map(FileChannel.MapMode.READ_ONLY, 0, size);
+      if(buffer.getInt() != FILE_MAGIC || buffer.getShort() != FILE_VERSION){
+        return null;
+      }
+      long loadTimeMillis = buffer.getLong();
+      int nameLength = buffer.getShort() & 0xFFFF;
+      byte[] nameBytes = new byte[nameLength];
+      buffer.get(nameBytes);
+    
+      int imageResId = mResources.getIdentifier(new String(nameBytes, CHARSET), IMAGE_RES_TYPE, mPackageName);
+      if(imageResId == 0){
+        return null;
+      }
+      return new DigestContent(imageResId, loadTimeMillis);
+    } catch(IOException e){
+      if(BuildConfig.DEBUG){
+        Log.w(TAG, "Could not read the content cache", e);
+      }
+      return null;
+    } catch(BufferUnderflowException e){
+      if(BuildConfig.DEBUG){
+        Log.w(TAG, "The content cache is truncated", e);
+      }
+      return null;
+    } finally {
+      closeQuietly(file);
+    }
+  }
+  
+  /**
+   * Replaces the cached content with the given one. This does disk I/O, so it should be called on a background thread
+   * @param content
+   * @throws IOException
+   */
+  public void write(DigestContent content) throws IOException {
+    String imageName;
+    try {
+      imageName = mResources.getResourceEntryName(content.getImageResId());
+    } catch(Resources.NotFoundException e){
+      throw new IOException("the content image is not a resource");
+    }
+    byte[] nameBytes = imageName.getBytes(CHARSET);
+    
+    File tempFile = new File(mFile.getPath() + ".tmp");
+    FileOutputStream out = new FileOutputStream(tempFile);
+    try {
+      DataOutputStream data = new DataOutputStream(new BufferedOutputStream(out));
+      data.writeInt(FILE_MAGIC);
+      data.writeShort(FILE_VERSION);
+      data.writeLong(content.getLoadTimeMillis());
+      data.writeShort(nameBytes.length);
+      data.write(nameBytes);
+      data.flush();
+      out.getFD().sync();
+    } finally {
+      out.close();
+    }
+    
+    if(!tempFile.renameTo(mFile)){
+      tempFile.delete();
+      throw new IOException("could not replace the content cache");
+    }
+  }
+  
+  /**
+   * Removes the cached content, if any
+   */
+  public void clear(){
+    mFile.delete();
+  }
+  
+  private static void closeQuietly(RandomAccessFile file){
+    if(file == null){
+      return;
+    }
+    try {
+      file.close();
+    } catch(IOException e){
+      // nothing to do, the file was only read
+    }
+  }
+}
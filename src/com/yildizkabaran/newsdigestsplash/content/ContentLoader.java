@@ -0,0 +1,157 @@
+package com.yildizkabaran.newsdigestsplash.content;
+
+import java.io.IOException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+
+import android.os.Handler;
+import android.os.Looper;
+
+/**
+ * Loads the digest content from a ContentSource on a background executor and hands the result back to the UI thread exactly once
+ * @author yildizkabaran
+ *
+ */
+public class ContentLoader {
+  
+  /**
+   * A simple interface to receive the result of a load on the UI thread
+   * @author yildizkabaran
+   *
+   */
+  public static interface ILoadListener {
+    public void onContentLoaded(DigestContent content);
+    public void onContentFailed(IOException e);
+  }
+  
+  private static final ThreadFactory THREAD_FACTORY = new BackgroundThreadFactory("ContentLoader");
+  
+  private final ContentSource mSource;
+  private final ExecutorService mExecutor;
+  private final Handler mMainHandler = new Handler(Looper.getMainLooper());
+  
+  // only touched on the UI thread
+  private ILoadListener mListener;
+  private Runnable mCurrentTask;
+  private Future<?> mPendingLoad;
+  
+  /**
+   * Creates a loader with its own single background thread
+   * @param source
+   */
+  public ContentLoader(ContentSource source){
+    this(source, Executors.newSingleThreadExecutor(THREAD_FACTORY));
+  }
+  
+  /**
+   * Creates a loader that runs on the given executor
+   * @param source
+   * @param executor
+   */
+  public ContentLoader(ContentSource source, ExecutorService executor){
+    mSource = source;
+    mExecutor = executor;
+  }
+  
+  /**
+   * Starts loading the content, the listener is notified on the UI thread once loading is done. Any load in progress is canceled first.
+   * Must be called on the UI thread
+   * @param listener
+   */
+  public void load(ILoadListener listener){
+    cancel();
+    mListener = listener;
+    mCurrentTask = new Runnable(){
+      @Override
+      public void run(){
+        try {
+          deliverLoaded(this, mSource.load());
+        } catch(IOException e){
+          deliverFailed(this, e);
+        }
+      }
+    };
+    mPendingLoad = mExecutor.submit(mCurrentTask);
+  }
+  
+  /**
+   * Replaces the listener of the load in progress, for instance with one from a recreated activity. Does nothing if nothing is
+   * loading. Must be called on the UI thread
+   * @param listener
+   */
+  public void setListener(ILoadListener listener){
+    if(mCurrentTask != null){
+      mListener = listener;
+    }
+  }
+  
+  /**
+   * Whether a load has been started and its result has not been delivered yet
+   */
+  public boolean isLoading(){
+    return mPendingLoad != null;
+  }
+  
+  /**
+   * Cancels the load in progress, if any. The listener will not be notified of it. Must be called on the UI thread
+   */
+  public void cancel(){
+    if(mPendingLoad != null){
+      mPendingLoad.cancel(true);
+      mPendingLoad = null;
+    }
+    mCurrentTask = null;
+    mListener = null;
+  }
+  
+  /**
+   * Cancels the load in progress and stops the background thread, the loader can not be used afterwards
+   */
+  public void shutdown(){
+    cancel();
+    mExecutor.shutdownNow();
+  }
+  
+  private void deliverLoaded(final Runnable task, final DigestContent content){
+    mMainHandler.post(new Runnable(){
+      @Override
+      public void run(){
+        ILoadListener listener = takeListener(task);
+        if(listener != null){
+          listener.onContentLoaded(content);
+        }
+      }
+    });
+  }
+  
+  private void deliverFailed(final Runnable task, final IOException e){
+    mMainHandler.post(new Runnable(){
+      @Override
+      public void run(){
+        ILoadListener listener = takeListener(task);
+        if(listener != null){
+          listener.onContentFailed(e);
+        }
+      }
+    });
+  }
+  
+  /**
+   * Returns the listener for the given load and forgets it, so that a result is delivered only once. Returns null if the load was
+   * canceled or replaced in the meantime
+   * @param task
+   * @return
+   */
+  private ILoadListener takeListener(Runnable task){
+    if(mCurrentTask != task){
+      return null;
+    }
+    ILoadListener listener = mListener;
+    mListener = null;
+    mCurrentTask = null;
+    mPendingLoad = null;
+    return listener;
+  }
+}
@@ -0,0 +1,13 @@
+package com.yildizkabaran.newsdigestsplash.content;
+
+import java.io.IOException;
+
+/**
+ * A source of digest content. Implementations are called on a background thread by the ContentLoader, so they are free to block
+ * on network, disk, or parsing work
+ * @author yildizkabaran
+ *
+ */
+public interface ContentSource {
+  public DigestContent load() throws IOException;
+}
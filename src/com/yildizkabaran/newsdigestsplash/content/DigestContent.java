@@ -0,0 +1,30 @@
+package com.yildizkabaran.newsdigestsplash.content;
+
+/**
+ * The loaded digest content, ready to be shown by the ContentView. Instances are immutable so they can be handed from the loader
+ * thread to the UI thread safely
+ * @author yildizkabaran
+ *
+ */
+public class DigestContent {
+
+  private final int mImageResId;
+  private final long mLoadTimeMillis;
+
+  /**
+   * @param imageResId the drawable resource of the digest image
+   * @param loadTimeMillis the wall clock time at which the content was loaded
+   */
+  public DigestContent(int imageResId, long loadTimeMillis){
+    mImageResId = imageResId;
+    mLoadTimeMillis = loadTimeMillis;
+  }
+  
+  public int getImageResId(){
+    return mImageResId;
+  }
+  
+  public long getLoadTimeMillis(){
+    return mLoadTimeMillis;
+  }
+}
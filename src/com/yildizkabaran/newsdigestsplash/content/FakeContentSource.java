@@ -0,0 +1,41 @@
+package com.yildizkabaran.newsdigestsplash.content;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.Random;
+
+import com.yildizkabaran.newsdigestsplash.R;
+
+/**
+ * A local content source that pretends to load data by blocking for a random time between the given bounds, then returns the
+ * bundled content image
+ * @author yildizkabaran
+ *
+ */
+public class FakeContentSource implements ContentSource {
+
+  private final long mMinDelayMillis;
+  private final long mMaxDelayMillis;
+  private final Random mRandom = new Random();
+  
+  /**
+   * @param minDelayMillis
+   * @param maxDelayMillis
+   */
+  public FakeContentSource(long minDelayMillis, long maxDelayMillis){
+    mMinDelayMillis = minDelayMillis;
+    mMaxDelayMillis = Math.max(minDelayMillis, maxDelayMillis);
+  }
+  
+  @Override
+  public DigestContent load() throws IOException {
+    long delay = mMinDelayMillis + (long) (mRandom.nextDouble() * (mMaxDelayMillis - mMinDelayMillis));
+    try {
+      Thread.sleep(delay);
+    } catch(InterruptedException e){
+      Thread.currentThread().interrupt();
+      throw new InterruptedIOException("loading was interrupted");
+    }
+    return new DigestContent(R.drawable.content, System.currentTimeMillis());
+  }
+}
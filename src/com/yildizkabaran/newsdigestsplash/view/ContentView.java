@@ -1,24 +1,280 @@
 package com.yildizkabaran.newsdigestsplash.view;
 
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
 import android.content.Context;
+import android.content.res.Resources;
+import android.graphics.Bitmap;
+import android.graphics.BitmapFactory;
+import android.graphics.drawable.ColorDrawable;
+import android.graphics.drawable.Drawable;
+import android.os.Handler;
+import android.os.Looper;
+import android.os.SystemClock;
+import android.util.Log;
+import android.util.TypedValue;
 import android.widget.ImageView;
 
+import com.yildizkabaran.newsdigestsplash.BuildConfig;
 import com.yildizkabaran.newsdigestsplash.R;
+import com.yildizkabaran.newsdigestsplash.content.BackgroundThreadFactory;
+import com.yildizkabaran.newsdigestsplash.content.DigestContent;
 
 /**
- * Nothing but an ImageView with a preset image resource
+ * An ImageView that shows the image of the loaded digest content. The image is decoded on a background thread, downsampled to
+ * the measured size of the view, and a placeholder is shown until the bitmap is ready
  * @author yildizkabaran
  *
  */
 public class ContentView extends ImageView {
   
+  private static final String TAG = "ContentView";
+  
+  /**
+   * All content views share a single decode thread with background priority, so that decoding does not compete with the UI thread
+   */
+  private static final ExecutorService DECODE_EXECUTOR = Executors.newSingleThreadExecutor(
+      new BackgroundThreadFactory("ContentDecoder"));
+  
+  /**
+   * The decode results are handed back through the main looper rather than the view, since a view that is not attached to a window
+   * does not run what is posted to it before API 24 and the result would be lost
+   */
+  private static final Handler MAIN_HANDLER = new Handler(Looper.getMainLooper());
+  
+  private DigestContent mContent;
+  private Drawable mPlaceholder;
+  private Bitmap mBitmap;
+  
+  // only touched on the UI thread, a decode result is applied only if its generation is still the current one
+  private int mDecodeGeneration;
+  private Future<?> mPendingDecode;
+  private int mDecodedWidth;
+  private int mDecodedHeight;
+  
+  // results of the last decode, kept for measurements
+  private long mLastDecodeMillis;
+  private int mLastSampleSize = 1;
+  
   public ContentView(Context context){
     super(context);
-    initialize();
+    // the color is a plain value, so it is read as one instead of through Resources.getColor, which is deprecated from API 23 on
+    TypedValue value = new TypedValue();
+    context.getResources().getValue(R.color.splash_bg, value, true);
+    mPlaceholder = new ColorDrawable(value.data);
+  }
+  
+  public ContentView(Context context, DigestContent content){
+    this(context);
+    setContent(content);
+  }
+  
+  /**
+   * Setter for the drawable that is shown while the image is being decoded, may be null to show nothing
+   * @param placeholder
+   */
+  public void setPlaceholder(Drawable placeholder){
+    mPlaceholder = placeholder;
+    if(mBitmap == null && mContent != null){
+      setImageDrawable(placeholder);
+    }
+  }
+  
+  /**
+   * Shows the given content, or nothing if the content is null. The image of the content is decoded on a background thread once
+   * the view has been measured, the placeholder is shown until then
+   * @param content
+   */
+  public void setContent(DigestContent content){
+    cancelDecode();
+    mContent = content;
+    mBitmap = null;
+    mDecodedWidth = 0;
+    mDecodedHeight = 0;
+    if(content == null){
+      setImageDrawable(null);
+      return;
+    }
+    setImageDrawable(mPlaceholder);
+    startDecodeIfNecessary();
+  }
+  
+  public DigestContent getContent(){
+    return mContent;
+  }
+  
+  /**
+   * Whether the image of the current content has been decoded and is being shown
+   */
+  public boolean isImageReady(){
+    return mBitmap != null;
+  }
+  
+  /**
+   * The wall time that the last decode took on the background thread, in ms
+   */
+  public long getLastDecodeMillis(){
+    return mLastDecodeMillis;
+  }
+  
+  /**
+   * The sample size that the last decode used, 1 means the image was decoded at full size
+   */
+  public int getLastSampleSize(){
+    return mLastSampleSize;
+  }
+  
+  /**
+   * The number of bytes used by the pixels of the bitmap being shown, or 0 if there is none yet
+   */
+  public int getBitmapByteCount(){
+    return mBitmap == null ? 0 : mBitmap.getByteCount();
+  }
+  
+  @Override
+  protected void onSizeChanged(int w, int h, int oldw, int oldh){
+    super.onSizeChanged(w, h, oldw, oldh);
+    startDecodeIfNecessary();
+  }
+  
+  @Override
+  protected void onAttachedToWindow(){
+    super.onAttachedToWindow();
+    startDecodeIfNecessary();
+  }
+  
+  @Override
+  protected void onDetachedFromWindow(){
+    // a decode that finishes after we are gone would only be thrown away
+    cancelDecode();
+    super.onDetachedFromWindow();
+  }
+  
+  /**
+   * Starts decoding the image of the current content if the view has a size and the bitmap being shown, if any, was decoded for
+   * a different size. The current bitmap stays on screen until the new one is ready
+   */
+  private void startDecodeIfNecessary(){
+    int width = getWidth();
+    int height = getHeight();
+    if(mContent == null || width <= 0 || height <= 0){
+      return;
+    }
+    if(mPendingDecode != null && width == mDecodedWidth && height == mDecodedHeight){
+      return;
+    }
+    if(mBitmap != null && width == mDecodedWidth && height == mDecodedHeight){
+      return;
+    }
+    
+    cancelDecode();
+    mDecodedWidth = width;
+    mDecodedHeight = height;
+    
+    final int generation = mDecodeGeneration;
+    final Resources resources = getResources();
+    final int resId = mContent.getImageResId();
+    final int reqWidth = width;
+    final int reqHeight = height;
+    mPendingDecode = DECODE_EXECUTOR.submit(new Runnable(){
+      @Override
+      public void run(){
+        long start = SystemClock.uptimeMillis();
+        final BitmapFactory.Options options = new BitmapFactory.Options();
+        final Bitmap bitmap = decodeSampledResource(resources, resId, reqWidth, reqHeight, options);
+        final long duration = SystemClock.uptimeMillis() - start;
+        if(Thread.currentThread().isInterrupted()){
+          return;
+        }
+        MAIN_HANDLER.post(new Runnable(){
+          @Override
+          public void run(){
+            onDecodeFinished(generation, bitmap, options.inSampleSize, duration);
+          }
+        });
+      }
+    });
+  }
+  
+  private void onDecodeFinished(int generation, Bitmap bitmap, int sampleSize, long duration){
+    if(generation != mDecodeGeneration){
+      return;
+    }
+    mPendingDecode = null;
+    if(bitmap == null){
+      if(BuildConfig.DEBUG){
+        Log.w(TAG, "Could not decode the content image");
+      }
+      return;
+    }
+    
+    mBitmap = bitmap;
+    mLastDecodeMillis = duration;
+    mLastSampleSize = sampleSize;
+    setImageBitmap(bitmap);
+    if(BuildConfig.DEBUG){
+      Log.d(TAG, "Decoded " + bitmap.getWidth() + "x" + bitmap.getHeight() + " (sample size " + sampleSize + ") in " + duration
+          + " ms, " + bitmap.getByteCount() + " bytes");
+    }
+  }
+  
+  /**
+   * Cancels the decode in progress, if any, its result will be ignored
+   */
+  private void cancelDecode(){
+    mDecodeGeneration++;
+    if(mPendingDecode != null){
+      mPendingDecode.cancel(true);
+      mPendingDecode = null;
+    }
+  }
+  
+  /**
+   * Decodes the given resource at the largest power of two downsampling that still covers the requested size. Density scaling is
+   * turned off, since the requested size already is in pixels. Returns null if the image could not be decoded
+   * @param resources
+   * @param resId
+   * @param reqWidth
+   * @param reqHeight
+   * @param options filled in with the bounds of the image and the sample size used
+   * @return
+   */
+  static Bitmap decodeSampledResource(Resources resources, int resId, int reqWidth, int reqHeight, BitmapFactory.Options options){
+    options.inScaled = false;
+    options.inJustDecodeBounds = true;
+    BitmapFactory.decodeResource(resources, resId, options);
+    if(options.outWidth <= 0 || options.outHeight <= 0){
+      return null;
+    }
+    
+    options.inSampleSize = calculateInSampleSize(options.outWidth, options.outHeight, reqWidth, reqHeight);
+    options.inJustDecodeBounds = false;
+    try {
+      return BitmapFactory.decodeResource(resources, resId, options);
+    } catch(OutOfMemoryError e){
+      return null;
+    }
   }
   
-  private void initialize(){
-    // set the dummy content image here
-    setImageResource(R.drawable.content);
+  /**
+   * Finds the largest power of two that the image can be divided by while still being at least as large as the requested size in
+   * both dimensions
+   * @param width
+   * @param height
+   * @param reqWidth
+   * @param reqHeight
+   * @return
+   */
+  static int calculateInSampleSize(int width, int height, int reqWidth, int reqHeight){
+    int sampleSize = 1;
+    if(reqWidth <= 0 || reqHeight <= 0){
+      return sampleSize;
+    }
+    while(width / (sampleSize * 2) >= reqWidth && height / (sampleSize * 2) >= reqHeight){
+      sampleSize *= 2;
+    }
+    return sampleSize;
   }
 }
@@ -0,0 +1,589 @@
+package com.yildizkabaran.newsdigestsplash.view;
+
+import android.content.Context;
+import android.graphics.Canvas;
+import android.graphics.ColorFilter;
+import android.graphics.Paint;
+import android.graphics.PixelFormat;
+import android.graphics.Rect;
+import android.graphics.drawable.Animatable;
+import android.graphics.drawable.Drawable;
+import android.util.AttributeSet;
+
+import com.yildizkabaran.newsdigestsplash.view.SplashView.ISplashListener;
+
+/**
+ * The splash animation as a Drawable, so that it can be drawn by any view that hosts drawables without adding a view of its own. The
+ * circles rotate while the drawable is running, and splashAndDisappear merges them and opens the transparent hole. Running drawables
+ * are advanced by the shared SplashTicker on the UI thread, and while only the ring of circles changes a drawable invalidates just
+ * the area of the ring through getDirtyBounds. A drawable that is made invisible, as hosts do when they are detached, unsubscribes
+ * from the ticker until it is visible again. Set the splash background color to transparent to use the rotating circles as a loading indicator.
+ * @author yildizkabaran
+ *
+ */
+public class SplashDrawable extends Drawable implements Animatable {
+  
+  /**
+   * An interface for the view hosting the drawable to hear of the expanding phase, so that it can open the hole on its own, and of
+   * the end of the splash around the splash listeners, so that it can remove itself before they are notified and report on the
+   * splash after they are
+   * @author yildizkabaran
+   *
+   */
+  static interface IHostCallback {
+    public void onSplashExpanding(long frameTimeNanos);
+    public void onSplashEnding();
+    public void onSplashEnded();
+  }
+  
+  // the renderer keeps all of the drawing and animation state, the drawable drives it and draws it within its bounds
+  private final SplashRenderer mRenderer = new SplashRenderer();
+  
+  // the shared ticker drives all of the states while running, the current state is computed from the frame time
+  private boolean mRunning = false;
+  private boolean mTicking = false;
+  private final SplashTicker.ITickListener mTickListener = new SplashTicker.ITickListener(){
+    @Override
+    public void onTick(long frameTimeNanos){
+      onFrame(frameTimeNanos);
+    }
+  };
+  
+  // the area to redraw on the next invalidate, in the coordinates of the host
+  private final Rect mDirtyBounds = new Rect();
+  private boolean mDirtyBoundsValid = false;
+  
+  // alpha and color filter are applied through a layer, only when they are set
+  private int mAlpha = 255;
+  private ColorFilter mColorFilter;
+  private Paint mLayerPaint;
+  
+  // the listener given to the last splashAndDisappear call, it is replaced by the next one
+  private ISplashListener mSplashListener;
+  private IHostCallback mHostCallback;
+  
+  // the phase milestones are only marked for the drawable of the splash view, the last marked phase keeps them from repeating
+  private boolean mTraceMilestones = false;
+  private int mLastMarkedPhase = -1;
+  
+  // frame timing is only recorded if stats are set
+  private SplashFrameStats mFrameStats;
+  private long mLastFrameTimeNanos = -1;
+  
+  /**
+   * Setup the custom attributes from XML, used by the views that host the drawable
+   * @param context
+   * @param attrs
+   */
+  void setupAttributes(Context context, AttributeSet attrs){
+    mRenderer.setupAttributes(context, attrs);
+  }
+  
+  /**
+   * Setter for the radius of each individual circle. Units in px
+   * @param circleRadius
+   */
+  public void setCircleRadius(float circleRadius){
+    mRenderer.setCircleRadius(circleRadius);
+    invalidateSelf();
+  }
+  
+  /**
+   * Setter for the radius of the large rotation circle. Units in px
+   * @param rotationRadius
+   */
+  public void setRotationRadius(float rotationRadius){
+    mRenderer.setRotationRadius(rotationRadius);
+  }
+  
+  /**
+   * Setter for the duration of the circles to complete one full rotation. Units in ms
+   * @param duration
+   */
+  public void setRotationDuration(long duration){
+    mRenderer.setRotationDuration(duration);
+  }
+  
+  /**
+   * Setter for the least time the circles rotate before the splash can start, so that an early call to splashAndDisappear still
+   * shows the rotation. 0 by default. Units in ms
+   * @param duration
+   */
+  public void setMinRotationDuration(long duration){
+    mRenderer.setMinRotationDuration(duration);
+  }
+  
+  /**
+   * Setter for the flag to start the merge from the current rotation angle on the very next frame, instead of showing one more frame
+   * of the circles where they were. Set to false by default.
+   * @param lowLatency
+   */
+  public void setLowLatency(boolean lowLatency){
+    mRenderer.setLowLatency(lowLatency);
+  }
+  
+  /**
+   * Setter for the background color, drawn over the bounds around the circles. Use a transparent color to draw only the circles
+   * @param bgColor
+   */
+  public void setSplashBackgroundColor(int bgColor){
+    mRenderer.setSplashBackgroundColor(bgColor);
+  }
+  
+  public int getSplashBackgroundColor(){
+    return mRenderer.getSplashBackgroundColor();
+  }
+  
+  /**
+   * Setter for the duration of the splash animation to take place. The animation has 3 parts, so this duration will be divided to 3 for each animation
+   * @param duration
+   */
+  public void setSplashDuration(long duration){
+    mRenderer.setSplashDuration(duration);
+  }
+  
+  /**
+   * Setter for the colors of the rotating circles. If the given integers are not actual colors, no circles will be produced.
+   * @param circleColors
+   */
+  public void setCircleColors(int[] circleColors){
+    mRenderer.setCircleColors(circleColors);
+    invalidateSelf();
+  }
+  
+  /**
+   * Setter for the method used to draw the transparent hole, one of the SplashView.HOLE_MODE constants. HOLE_MODE_AUTO is used by default.
+   * @param holeMode
+   */
+  public void setHoleMode(int holeMode){
+    mRenderer.setHoleMode(holeMode);
+  }
+  
+  /**
+   * The hole mode that is used to draw onto the given canvas, with SplashView.HOLE_MODE_AUTO resolved to the mode it picks for the
+   * canvas
+   * @param canvas
+   * @return
+   */
+  public int resolveHoleMode(Canvas canvas){
+    return mRenderer.resolveHoleMode(canvas);
+  }
+  
+  /**
+   * Setter for the flag to draw the rotating circles as sprites from a pre-rasterized atlas bitmap instead of drawing each circle
+   * anti aliased on every frame. This is mostly useful for software rendered canvases. Set to false by default.
+   * @param useCircleSprites
+   */
+  public void setUseCircleSprites(boolean useCircleSprites){
+    mRenderer.setUseCircleSprites(useCircleSprites);
+    invalidateSelf();
+  }
+  
+  /**
+   * Setter for the number of circles of each color. With more than one, the circles are drawn as particles that fill the disc of the
+   * rotation radius, each color with a single batched draw call. Set to 1 by default, which draws the classic ring.
+   * @param particlesPerColor
+   */
+  public void setParticlesPerColor(int particlesPerColor){
+    mRenderer.setParticlesPerColor(particlesPerColor);
+  }
+  
+  /**
+   * Adds a listener to be notified of the splash start, progress and end, along with the one given to splashAndDisappear
+   * @param listener
+   */
+  public void addSplashListener(ISplashListener listener){
+    mRenderer.getProgressDispatcher().addListener(listener);
+  }
+  
+  public void removeSplashListener(ISplashListener listener){
+    mRenderer.getProgressDispatcher().removeListener(listener);
+  }
+  
+  /**
+   * Setter for the least time between two progress updates to the listeners. 0 by default, which updates on every frame. Units in ms
+   * @param interval
+   */
+  public void setProgressUpdateInterval(long interval){
+    mRenderer.getProgressDispatcher().setMinUpdateInterval(interval);
+  }
+  
+  /**
+   * Setter for the least change in the completion fraction between two progress updates to the listeners. 0 by default, which
+   * updates on every change. The final update of the splash is always delivered
+   * @param delta
+   */
+  public void setProgressUpdateDelta(float delta){
+    mRenderer.getProgressDispatcher().setMinUpdateDelta(delta);
+  }
+  
+  /**
+   * Setter for the callback of the view hosting the drawable
+   * @param hostCallback
+   */
+  void setHostCallback(IHostCallback hostCallback){
+    mHostCallback = hostCallback;
+  }
+  
+  /**
+   * Setter for the flag that the host view uses to remove itself once the animation is over, the drawable only keeps it
+   * @param shouldRemove
+   */
+  void setRemoveFromParentOnEnd(boolean shouldRemove){
+    mRenderer.setRemoveFromParentOnEnd(shouldRemove);
+  }
+  
+  boolean isRemoveFromParentOnEnd(){
+    return mRenderer.isRemoveFromParentOnEnd();
+  }
+  
+  /**
+   * Setter for the stats that frame timing is recorded into, set to null to stop recording
+   * @param frameStats
+   */
+  void setFrameStats(SplashFrameStats frameStats){
+    mFrameStats = frameStats;
+    mLastFrameTimeNanos = -1;
+  }
+  
+  /**
+   * The duration of each of the splash phases, used by the host to run its own exit animation
+   */
+  long getPhaseDurationNanos(){
+    return mRenderer.getPhaseDurationNanos();
+  }
+  
+  /**
+   * The current radius of the transparent hole, from the center of the bounds. Units in px
+   */
+  float getHoleRadius(){
+    return mRenderer.getHoleRadius();
+  }
+  
+  /**
+   * Setter for the flag to mark the start of every phase and the end of the splash as SplashTrace milestones
+   * @param traceMilestones
+   */
+  void setTraceMilestones(boolean traceMilestones){
+    mTraceMilestones = traceMilestones;
+  }
+  
+  /**
+   * Whether the animation state has been set up, either by a draw or by starting the drawable
+   */
+  boolean isInitialized(){
+    return mRenderer.isInitialized();
+  }
+  
+  /**
+   * Starts rotating the circles. Does nothing if the drawable is already running. A drawable whose splash is over starts again from
+   * the rotation
+   */
+  @Override
+  public void start(){
+    if(mRunning){
+      return;
+    }
+    if(!mRenderer.isInitialized() || mRenderer.getPhase() == SplashTimeline.PHASE_DONE){
+      reset();
+    }
+    mRunning = true;
+    updateTickerSubscription();
+  }
+  
+  /**
+   * Goes back to the start of the rotation so that the splash can be run again. The states, paints, geometry buffers and sprites are
+   * all kept and reused, nothing is allocated. A running drawable keeps running from the first frame of the rotation
+   */
+  public void reset(){
+    mRenderer.reset();
+    mLastMarkedPhase = -1;
+    mDirtyBoundsValid = false;
+    mLastFrameTimeNanos = -1;
+    invalidateSelf();
+  }
+  
+  /**
+   * Stops the frame clock, the drawable keeps showing its last frame
+   */
+  @Override
+  public void stop(){
+    mRunning = false;
+    updateTickerSubscription();
+  }
+  
+  @Override
+  public boolean isRunning(){
+    return mRunning;
+  }
+  
+  /**
+   * Starts the splash animation, and the rotation as well if the drawable was not running. If a listener is provided it will notify
+   * the listener on animation events, in place of the listener given to the previous call. The drawable stops itself once the splash
+   * is over
+   * @param listener
+   */
+  public void splashAndDisappear(ISplashListener listener){
+    if(listener != mSplashListener){
+      removeSplashListener(mSplashListener);
+      addSplashListener(listener);
+      mSplashListener = listener;
+    }
+    // a splash that is already over is run again from the rotation
+    if(mRenderer.getPhase() == SplashTimeline.PHASE_DONE){
+      reset();
+    }
+    // the merge starts on the next frame of the clock, keeping the rotation angle where it was left
+    mRenderer.startSplash();
+    mRunning = true;
+    updateTickerSubscription();
+  }
+  
+  /**
+   * Hosts hide their drawables when they are detached or hidden, the drawable stops ticking while it is not visible and picks up
+   * again once it is visible, if it is still running
+   */
+  @Override
+  public boolean setVisible(boolean visible, boolean restart){
+    boolean changed = super.setVisible(visible, restart);
+    updateTickerSubscription();
+    return changed;
+  }
+  
+  /**
+   * The current phase of the animation, one of the SplashTimeline phases
+   */
+  public int getPhase(){
+    return mRenderer.getPhase();
+  }
+  
+  /**
+   * The time spent in the current phase as of the last frame, saved together with the phase to restore the animation later
+   */
+  public long getPhaseElapsedNanos(){
+    return mRenderer.getPhaseElapsedNanos();
+  }
+  
+  /**
+   * The current rotation angle of the circles, in radians. The circles keep the angle they had when the splash started
+   */
+  public float getRotationAngle(){
+    return mRenderer.getRotationAngle();
+  }
+  
+  /**
+   * Whether the splash has been started but is waiting for the minimum rotation to be done
+   */
+  public boolean isSplashPending(){
+    return mRenderer.isSplashPending();
+  }
+  
+  /**
+   * Puts the animation back into a state saved from getPhase, getPhaseElapsedNanos, getRotationAngle and isSplashPending. The
+   * drawable shows the restored frame right away and continues from it once it is running
+   * @param phase
+   * @param phaseElapsedNanos
+   * @param rotationAngle
+   * @param splashPending
+   */
+  public void restore(int phase, long phaseElapsedNanos, float rotationAngle, boolean splashPending){
+    mRenderer.restore(phase, phaseElapsedNanos, rotationAngle, splashPending);
+    // the restored phase started before this drawable existed
+    mLastMarkedPhase = phase;
+    mDirtyBoundsValid = false;
+    mLastFrameTimeNanos = -1;
+    invalidateSelf();
+  }
+  
+  /**
+   * The drawable wants to be as large as the ring of circles
+   */
+  @Override
+  public int getIntrinsicWidth(){
+    return mRenderer.getRingSize();
+  }
+  
+  @Override
+  public int getIntrinsicHeight(){
+    return mRenderer.getRingSize();
+  }
+  
+  @Override
+  protected void onBoundsChange(Rect bounds){
+    mRenderer.setSize(bounds.width(), bounds.height());
+    mDirtyBoundsValid = false;
+  }
+  
+  /**
+   * While only the ring of circles changes, the dirty bounds are the area of the ring on this and the previous frame. Otherwise the
+   * whole bounds are dirty
+   */
+  @Override
+  public Rect getDirtyBounds(){
+    return mDirtyBoundsValid ? mDirtyBounds : getBounds();
+  }
+  
+  @Override
+  public void draw(Canvas canvas){
+    Rect bounds = getBounds();
+    if(bounds.isEmpty()){
+      return;
+    }
+    long drawStartNanos = mFrameStats != null ? System.nanoTime() : 0;
+    
+    // the renderer draws from the origin and fills everything it can, so keep it inside the bounds
+    int saveCount;
+    if(mAlpha < 255 || mColorFilter != null){
+      saveCount = canvas.saveLayer(bounds.left, bounds.top, bounds.right, bounds.bottom, mLayerPaint, Canvas.ALL_SAVE_FLAG);
+    } else {
+      saveCount = canvas.save();
+    }
+    canvas.clipRect(bounds.left, bounds.top, bounds.right, bounds.bottom);
+    canvas.translate(bounds.left, bounds.top);
+    mRenderer.draw(canvas);
+    canvas.restoreToCount(saveCount);
+    
+    if(mFrameStats != null){
+      mFrameStats.recordDraw(System.nanoTime() - drawStartNanos);
+    }
+  }
+  
+  @Override
+  public void setAlpha(int alpha){
+    mAlpha = alpha;
+    updateLayerPaint();
+    invalidateSelf();
+  }
+  
+  @Override
+  public void setColorFilter(ColorFilter colorFilter){
+    mColorFilter = colorFilter;
+    updateLayerPaint();
+    invalidateSelf();
+  }
+  
+  private void updateLayerPaint(){
+    if(mAlpha >= 255 && mColorFilter == null){
+      mLayerPaint = null;
+      return;
+    }
+    if(mLayerPaint == null){
+      mLayerPaint = new Paint();
+    }
+    mLayerPaint.setAlpha(mAlpha);
+    mLayerPaint.setColorFilter(mColorFilter);
+  }
+  
+  /**
+   * The transparent hole and the space around the circles always let what is behind show through
+   */
+  @Override
+  public int getOpacity(){
+    return PixelFormat.TRANSLUCENT;
+  }
+  
+  /**
+   * Frees the resources held for drawing, they will be created again if the drawable draws again
+   */
+  public void release(){
+    mRenderer.release();
+  }
+  
+  /**
+   * Called by the shared ticker once per display frame. Advances the renderer to the frame time and invalidates the parts of the
+   * drawable that changed
+   * @param frameTimeNanos
+   */
+  private void onFrame(long frameTimeNanos){
+    if(mFrameStats != null){
+      if(mLastFrameTimeNanos >= 0){
+        mFrameStats.recordFrameInterval(frameTimeNanos - mLastFrameTimeNanos, mRenderer.getPhase());
+      }
+      mLastFrameTimeNanos = frameTimeNanos;
+    }
+    
+    int previousPhase = mRenderer.getPhase();
+    boolean running = mRenderer.advance(frameTimeNanos);
+    if(mTraceMilestones && mRenderer.isInitialized()){
+      markPhases(frameTimeNanos);
+    }
+    if(!running){
+      // the splash is over, or was never started
+      if(mRenderer.isInitialized()){
+        finishSplash();
+      }
+      return;
+    }
+    
+    // the host may take over opening the hole, the timeline keeps running for the listeners either way
+    if(mHostCallback != null && previousPhase != SplashTimeline.PHASE_EXPANDING
+        && mRenderer.getPhase() == SplashTimeline.PHASE_EXPANDING){
+      mHostCallback.onSplashExpanding(frameTimeNanos);
+    }
+    
+    // only the changed part is invalidated if the renderer knows it, getDirtyBounds hands it to the host
+    Rect bounds = getBounds();
+    mDirtyBoundsValid = mRenderer.getDirtyRect(mDirtyBounds);
+    if(mDirtyBoundsValid){
+      mDirtyBounds.offset(bounds.left, bounds.top);
+    }
+    invalidateSelf();
+  }
+  
+  /**
+   * Marks the start of every phase entered since the last frame, more than one phase may have been passed within a single frame
+   * @param frameTimeNanos
+   */
+  private void markPhases(long frameTimeNanos){
+    int phase = mRenderer.getPhase();
+    while(mLastMarkedPhase < phase){
+      mLastMarkedPhase++;
+      SplashTrace.markPhase(mLastMarkedPhase, frameTimeNanos);
+    }
+  }
+  
+  /**
+   * Subscribes to the shared ticker while the drawable is running and visible, and unsubscribes otherwise. The animation is paused
+   * while not ticking, so it continues from the same frame once it ticks again
+   */
+  private void updateTickerSubscription(){
+    boolean shouldTick = mRunning && isVisible();
+    if(shouldTick == mTicking){
+      return;
+    }
+    mTicking = shouldTick;
+    if(shouldTick){
+      SplashTicker.getInstance().subscribe(mTickListener);
+    } else {
+      SplashTicker.getInstance().unsubscribe(mTickListener);
+      mRenderer.pause();
+      // the paused time is not a dropped frame
+      mLastFrameTimeNanos = -1;
+    }
+  }
+  
+  /**
+   * Stops the frame clock, draws the final empty frame and notifies the listeners that the splash is over
+   */
+  private void finishSplash(){
+    mRunning = false;
+    updateTickerSubscription();
+    mDirtyBoundsValid = false;
+    invalidateSelf();
+    
+    if(mHostCallback != null){
+      mHostCallback.onSplashEnding();
+    }
+    if(mTraceMilestones){
+      SplashTrace.beginSection("ISplashListener.onEnd");
+    }
+    mRenderer.getProgressDispatcher().dispatchEnd();
+    if(mTraceMilestones){
+      SplashTrace.endSection();
+      SplashTrace.mark(SplashTrace.MILESTONE_SPLASH_END);
+    }
+    if(mHostCallback != null){
+      mHostCallback.onSplashEnded();
+    }
+  }
+}
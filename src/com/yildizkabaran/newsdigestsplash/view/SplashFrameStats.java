@@ -0,0 +1,204 @@
+package com.yildizkabaran.newsdigestsplash.view;
+
+/**
+ * Collects per frame timing of the splash into fixed size histograms, so that recording a frame never allocates. Draw durations and
+ * intervals between frames are kept in 1 ms buckets, anything longer than the last bucket is counted in the last bucket. Frames that
+ * took longer than the expected frame interval are counted as dropped frames for the phase they happened in.
+ * @author yildizkabaran
+ *
+ */
+public class SplashFrameStats {
+
+  private static final long NANOS_PER_MS = 1000000L;
+
+  /** the number of 1 ms buckets in each histogram, the last bucket also holds everything longer **/
+  public static final int NUM_BUCKETS = 64;
+  public static final float DEFAULT_REFRESH_RATE = 60F;
+  
+  private long mExpectedFrameIntervalNanos = (long) (1000000000L / DEFAULT_REFRESH_RATE);
+  
+  private final int[] mDrawHistogram = new int[NUM_BUCKETS];
+  private final int[] mIntervalHistogram = new int[NUM_BUCKETS];
+  private final int[] mDroppedFrames = new int[SplashTimeline.PHASE_DONE + 1];
+  private final int[] mFrames = new int[SplashTimeline.PHASE_DONE + 1];
+  private int mDrawCount;
+  private int mIntervalCount;
+  private long mTotalDrawNanos;
+  private long mMaxDrawNanos;
+  private long mMaxIntervalNanos;
+  
+  /**
+   * Setter for the refresh rate of the display, used to decide how many frames were dropped between two frames
+   * @param refreshRate
+   */
+  public void setRefreshRate(float refreshRate){
+    if(refreshRate > 0F){
+      mExpectedFrameIntervalNanos = (long) (1000000000L / refreshRate);
+    }
+  }
+  
+  /**
+   * Clears all of the recorded values
+   */
+  public void reset(){
+    for(int i=0; i<NUM_BUCKETS; ++i){
+      mDrawHistogram[i] = 0;
+      mIntervalHistogram[i] = 0;
+    }
+    for(int i=0; i<mDroppedFrames.length; ++i){
+      mDroppedFrames[i] = 0;
+      mFrames[i] = 0;
+    }
+    mDrawCount = 0;
+    mIntervalCount = 0;
+    mTotalDrawNanos = 0;
+    mMaxDrawNanos = 0;
+    mMaxIntervalNanos = 0;
+  }
+  
+  /**
+   * Records the time taken by a single draw
+   * @param durationNanos
+   */
+  public void recordDraw(long durationNanos){
+    mDrawHistogram[toBucket(durationNanos)]++;
+    mDrawCount++;
+    mTotalDrawNanos += durationNanos;
+    if(durationNanos > mMaxDrawNanos){
+      mMaxDrawNanos = durationNanos;
+    }
+  }
+  
+  /**
+   * Records the time between two consecutive frames, any frame intervals missed in between are counted as dropped for the given phase
+   * @param intervalNanos
+   * @param phase one of the SplashTimeline phases
+   */
+  public void recordFrameInterval(long intervalNanos, int phase){
+    mIntervalHistogram[toBucket(intervalNanos)]++;
+    mIntervalCount++;
+    if(intervalNanos > mMaxIntervalNanos){
+      mMaxIntervalNanos = intervalNanos;
+    }
+    
+    if(phase >= 0 && phase < mFrames.length){
+      mFrames[phase]++;
+      // allow half a frame of jitter before counting a frame as dropped
+      long dropped = (intervalNanos + mExpectedFrameIntervalNanos / 2) / mExpectedFrameIntervalNanos - 1;
+      if(dropped > 0){
+        mDroppedFrames[phase] += dropped;
+      }
+    }
+  }
+  
+  private static int toBucket(long nanos){
+    long bucket = nanos / NANOS_PER_MS;
+    if(bucket < 0){
+      return 0;
+    }
+    return bucket >= NUM_BUCKETS ? NUM_BUCKETS - 1 : (int) bucket;
+  }
+  
+  /**
+   * Finds the given percentile from a histogram, in ms. The upper edge of the bucket is returned
+   * @param histogram
+   * @param count
+   * @param percentile between 0 and 1
+   * @return
+   */
+  private static int getPercentile(int[] histogram, int count, float percentile){
+    if(count == 0){
+      return 0;
+    }
+    int target = (int) Math.ceil(count * percentile);
+    int sum = 0;
+    for(int i=0; i<NUM_BUCKETS; ++i){
+      sum += histogram[i];
+      if(sum >= target){
+        return i + 1;
+      }
+    }
+    return NUM_BUCKETS;
+  }
+  
+  public int getDrawCount(){
+    return mDrawCount;
+  }
+  
+  public int getFrameCount(){
+    return mIntervalCount;
+  }
+  
+  public float getAverageDrawMs(){
+    return mDrawCount == 0 ? 0F : (float) mTotalDrawNanos / mDrawCount / NANOS_PER_MS;
+  }
+  
+  public float getMaxDrawMs(){
+    return (float) mMaxDrawNanos / NANOS_PER_MS;
+  }
+  
+  public float getMaxFrameIntervalMs(){
+    return (float) mMaxIntervalNanos / NANOS_PER_MS;
+  }
+  
+  /**
+   * The draw duration, in whole ms, that the given fraction of draws did not exceed
+   * @param percentile between 0 and 1
+   * @return
+   */
+  public int getDrawPercentileMs(float percentile){
+    return getPercentile(mDrawHistogram, mDrawCount, percentile);
+  }
+  
+  /**
+   * The frame interval, in whole ms, that the given fraction of frames did not exceed
+   * @param percentile between 0 and 1
+   * @return
+   */
+  public int getFrameIntervalPercentileMs(float percentile){
+    return getPercentile(mIntervalHistogram, mIntervalCount, percentile);
+  }
+  
+  /**
+   * The number of frames drawn in the given phase
+   * @param phase one of the SplashTimeline phases
+   * @return
+   */
+  public int getFrameCount(int phase){
+    return mFrames[phase];
+  }
+  
+  /**
+   * The number of frames dropped in the given phase
+   * @param phase one of the SplashTimeline phases
+   * @return
+   */
+  public int getDroppedFrames(int phase){
+    return mDroppedFrames[phase];
+  }
+  
+  /**
+   * The number of frames dropped in all phases
+   */
+  public int getDroppedFrames(){
+    int total = 0;
+    for(int i=0; i<mDroppedFrames.length; ++i){
+      total += mDroppedFrames[i];
+    }
+    return total;
+  }
+  
+  /**
+   * A copy of the draw duration histogram, index i holds the number of draws that took between i and i + 1 ms
+   */
+  public int[] getDrawHistogram(){
+    return mDrawHistogram.clone();
+  }
+  
+  /**
+   * A copy of the frame interval histogram, index i holds the number of frames that came between i and i + 1 ms after the previous one
+   */
+  public int[] getFrameIntervalHistogram(){
+    return mIntervalHistogram.clone();
+  }
+}
@@ -0,0 +1,211 @@
+package com.yildizkabaran.newsdigestsplash.view;
+
+/**
+ * The positions of the rotating circles, free of any Android dependencies like SplashTimeline so that it can be run and measured on a
+ * plain JVM. The sin and cos of each circle's angle offset only change with the number of circles and are kept in tables, the
+ * positions are kept in flat arrays and only recomputed when the rotation angle, radius or center changes. Nothing is allocated
+ * after the number of circles is set.
+ * @author yildizkabaran
+ *
+ */
+public class SplashGeometry {
+
+  // in particle mode every circle has a fixed angle offset and a fraction of the rotation radius, laid out as a sunflower spiral so
+  // that the particles fill the disc evenly. The positions are kept as x, y pairs grouped by color so that each color is one draw call
+  private static final double GOLDEN_ANGLE = Math.PI * (3 - Math.sqrt(5));
+
+  /** some adjustable parameters **/
+  private int mNumCircles = 0;
+  private int mParticlesPerColor = 1;
+  private float mCenterX;
+  private float mCenterY;
+  
+  /** the tables and position buffers of the ring **/
+  private float[] mCircleOffsetSin = new float[0];
+  private float[] mCircleOffsetCos = new float[0];
+  private float[] mCircleX = new float[0];
+  private float[] mCircleY = new float[0];
+  
+  /** the tables and point buffer of the particles **/
+  private float[] mParticleOffsetSin = new float[0];
+  private float[] mParticleOffsetCos = new float[0];
+  private float[] mParticleRadiusFraction = new float[0];
+  private float[] mParticlePoints = new float[0];
+  
+  /** the values the positions were last computed for **/
+  private boolean mPositionsValid = false;
+  private float mPositionsAngle;
+  private float mPositionsRadius;
+  
+  /**
+   * Setter for the number of circles in the ring, one for each circle color. Rebuilds the angle offset tables and the position buffers
+   * @param numCircles
+   */
+  public void setCircleCount(int numCircles){
+    mNumCircles = Math.max(0, numCircles);
+    rebuild();
+  }
+  
+  public int getCircleCount(){
+    return mNumCircles;
+  }
+  
+  /**
+   * Setter for the number of particles of each color. With more than one, the circles are laid out as particles that fill the disc
+   * of the rotation radius instead of the ring
+   * @param particlesPerColor
+   */
+  public void setParticlesPerColor(int particlesPerColor){
+    mParticlesPerColor = Math.max(1, particlesPerColor);
+    rebuild();
+  }
+  
+  public int getParticlesPerColor(){
+    return mParticlesPerColor;
+  }
+  
+  public boolean isParticleMode(){
+    return mParticlesPerColor > 1;
+  }
+  
+  /**
+   * Setter for the center that the circles rotate around. Units in px
+   * @param centerX
+   * @param centerY
+   */
+  public void setCenter(float centerX, float centerY){
+    mCenterX = centerX;
+    mCenterY = centerY;
+    mPositionsValid = false;
+  }
+  
+  /**
+   * Rebuilds the angle offset tables and position buffers for the current number of circles
+   */
+  private void rebuild(){
+    int numCircles = mNumCircles;
+    if(mCircleOffsetSin.length != numCircles){
+      mCircleOffsetSin = new float[numCircles];
+      mCircleOffsetCos = new float[numCircles];
+      mCircleX = new float[numCircles];
+      mCircleY = new float[numCircles];
+    }
+    
+    // calculate the angle between each circle, angles are in radians
+    double offsetAngle = 2 * Math.PI / numCircles;
+    for(int i=0; i<numCircles; ++i){
+      mCircleOffsetSin[i] = (float) Math.sin(i * offsetAngle);
+      mCircleOffsetCos[i] = (float) Math.cos(i * offsetAngle);
+    }
+    
+    rebuildParticles(numCircles);
+    mPositionsValid = false;
+  }
+  
+  /**
+   * Rebuilds the particle offset tables and the point buffer. The particles are placed on a sunflower spiral and the colors take
+   * turns along the spiral, so every color is spread over the whole disc. Without particle mode the buffers are emptied
+   * @param numColors
+   */
+  private void rebuildParticles(int numColors){
+    int numParticles = isParticleMode() ? numColors * mParticlesPerColor : 0;
+    if(mParticleRadiusFraction.length != numParticles){
+      mParticleOffsetSin = new float[numParticles];
+      mParticleOffsetCos = new float[numParticles];
+      mParticleRadiusFraction = new float[numParticles];
+      mParticlePoints = new float[numParticles * 2];
+    }
+    
+    for(int color=0; color<numColors && numParticles > 0; ++color){
+      for(int j=0; j<mParticlesPerColor; ++j){
+        // the index in the buffer is grouped by color, the index on the spiral alternates colors
+        int index = color * mParticlesPerColor + j;
+        int spiralIndex = j * numColors + color;
+        double angle = spiralIndex * GOLDEN_ANGLE;
+        mParticleOffsetSin[index] = (float) Math.sin(angle);
+        mParticleOffsetCos[index] = (float) Math.cos(angle);
+        mParticleRadiusFraction[index] = (float) Math.sqrt((spiralIndex + 0.5) / numParticles);
+      }
+    }
+  }
+  
+  /**
+   * Updates the positions for the given rotation angle and radius. Only a single sin and cos is calculated per update, the position of
+   * each circle is then found by rotating its precomputed offset by the angle. Does nothing if the values did not change
+   * @param rotationAngle in radians
+   * @param rotationRadius in px
+   */
+  public void update(float rotationAngle, float rotationRadius){
+    if(mPositionsValid && mPositionsAngle == rotationAngle && mPositionsRadius == rotationRadius){
+      return;
+    }
+    
+    float sinAngle = (float) Math.sin(rotationAngle);
+    float cosAngle = (float) Math.cos(rotationAngle);
+    if(isParticleMode()){
+      updateParticles(sinAngle, cosAngle, rotationRadius);
+    } else {
+      updateRing(sinAngle, cosAngle, rotationRadius);
+    }
+    
+    mPositionsAngle = rotationAngle;
+    mPositionsRadius = rotationRadius;
+    mPositionsValid = true;
+  }
+  
+  private void updateRing(float sinAngle, float cosAngle, float rotationRadius){
+    int numCircles = mNumCircles;
+    for(int i=0; i<numCircles; ++i){
+      // sin(a + b) and cos(a + b) using the angle sum identities
+      float sin = sinAngle * mCircleOffsetCos[i] + cosAngle * mCircleOffsetSin[i];
+      float cos = cosAngle * mCircleOffsetCos[i] - sinAngle * mCircleOffsetSin[i];
+      // convert the coordinates into cartesian coordinates using simple trigonometry
+      mCircleX[i] = mCenterX + rotationRadius * sin;
+      mCircleY[i] = mCenterY - rotationRadius * cos;
+    }
+  }
+  
+  /**
+   * The particles rotate the same way as the ring, each at its own fraction of the rotation radius, so they all fall into the center
+   * together while merging
+   * @param sinAngle
+   * @param cosAngle
+   * @param rotationRadius
+   */
+  private void updateParticles(float sinAngle, float cosAngle, float rotationRadius){
+    int numParticles = mParticleRadiusFraction.length;
+    for(int i=0; i<numParticles; ++i){
+      float sin = sinAngle * mParticleOffsetCos[i] + cosAngle * mParticleOffsetSin[i];
+      float cos = cosAngle * mParticleOffsetCos[i] - sinAngle * mParticleOffsetSin[i];
+      float radius = rotationRadius * mParticleRadiusFraction[i];
+      mParticlePoints[i * 2] = mCenterX + radius * sin;
+      mParticlePoints[i * 2 + 1] = mCenterY - radius * cos;
+    }
+  }
+  
+  /**
+   * The x coordinate of the center of the given circle of the ring, as of the last update
+   * @param index
+   * @return
+   */
+  public float getCircleX(int index){
+    return mCircleX[index];
+  }
+  
+  /**
+   * The y coordinate of the center of the given circle of the ring, as of the last update
+   * @param index
+   * @return
+   */
+  public float getCircleY(int index){
+    return mCircleY[index];
+  }
+  
+  /**
+   * The x, y pairs of the particles as of the last update, grouped by color. The buffer is reused, it must not be modified
+   * @return
+   */
+  public float[] getParticlePoints(){
+    return mParticlePoints;
+  }
+}
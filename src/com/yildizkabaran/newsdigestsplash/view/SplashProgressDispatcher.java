@@ -0,0 +1,147 @@
+package com.yildizkabaran.newsdigestsplash.view;
+
+import com.yildizkabaran.newsdigestsplash.view.SplashView.ISplashListener;
+
+/**
+ * Hands the splash events over to any number of listeners. Progress updates can be throttled by a minimum interval between updates
+ * and by a minimum change in the completion fraction, the first and the final update are always delivered. The listeners are kept in
+ * an array that is replaced when a listener is added or removed, so dispatching does not allocate and listeners may add or remove
+ * listeners from their callbacks. Must only be used on the thread that advances the splash.
+ * @author yildizkabaran
+ *
+ */
+public final class SplashProgressDispatcher {
+
+  /** define some default values **/
+  public static final long DEFAULT_MIN_UPDATE_INTERVAL = 0; // ms, every frame
+  public static final float DEFAULT_MIN_UPDATE_DELTA = 0F; // every change
+  
+  private static final ISplashListener[] NO_LISTENERS = new ISplashListener[0];
+  
+  private ISplashListener[] mListeners = NO_LISTENERS;
+  
+  private long mMinUpdateIntervalNanos = DEFAULT_MIN_UPDATE_INTERVAL * 1000000L;
+  private float mMinUpdateDelta = DEFAULT_MIN_UPDATE_DELTA;
+  
+  // the last delivered update, a negative fraction means nothing was delivered since the splash started
+  private float mLastFraction = -1F;
+  private long mLastUpdateTimeNanos;
+  
+  /**
+   * Adds a listener to be notified of the splash events. Does nothing if the listener is null or already added
+   * @param listener
+   */
+  public void addListener(ISplashListener listener){
+    if(listener == null || indexOf(listener) >= 0){
+      return;
+    }
+    ISplashListener[] listeners = new ISplashListener[mListeners.length + 1];
+    System.arraycopy(mListeners, 0, listeners, 0, mListeners.length);
+    listeners[mListeners.length] = listener;
+    mListeners = listeners;
+  }
+  
+  /**
+   * Removes a listener that was added before, it will not be notified of any further events
+   * @param listener
+   */
+  public void removeListener(ISplashListener listener){
+    int index = indexOf(listener);
+    if(index < 0){
+      return;
+    }
+    if(mListeners.length == 1){
+      mListeners = NO_LISTENERS;
+      return;
+    }
+    ISplashListener[] listeners = new ISplashListener[mListeners.length - 1];
+    System.arraycopy(mListeners, 0, listeners, 0, index);
+    System.arraycopy(mListeners, index + 1, listeners, index, listeners.length - index);
+    mListeners = listeners;
+  }
+  
+  /**
+   * Whether any listener is added, there is no need to compute the progress otherwise
+   */
+  public boolean hasListeners(){
+    return mListeners.length > 0;
+  }
+  
+  /**
+   * Setter for the least time between two progress updates. 0 by default, which updates on every frame. Units in ms
+   * @param interval
+   */
+  public void setMinUpdateInterval(long interval){
+    mMinUpdateIntervalNanos = Math.max(0, interval) * 1000000L;
+  }
+  
+  /**
+   * Setter for the least change in the completion fraction between two progress updates, for instance 0.01 for at most 100 updates
+   * per splash. 0 by default, which updates on every change
+   * @param delta
+   */
+  public void setMinUpdateDelta(float delta){
+    mMinUpdateDelta = Math.max(0F, delta);
+  }
+  
+  /**
+   * Forgets the last delivered update, so that the next one is delivered regardless of the throttling
+   */
+  public void reset(){
+    mLastFraction = -1F;
+  }
+  
+  /**
+   * Notifies the listeners that the splash started
+   */
+  public void dispatchStart(){
+    reset();
+    ISplashListener[] listeners = mListeners;
+    for(int i=0; i<listeners.length; ++i){
+      listeners[i].onStart();
+    }
+  }
+  
+  /**
+   * Notifies the listeners of the splash progress, unless the last update was too recent or too close to this one
+   * @param completionFraction
+   * @param frameTimeNanos the time of the frame that the progress belongs to
+   */
+  public void dispatchUpdate(float completionFraction, long frameTimeNanos){
+    ISplashListener[] listeners = mListeners;
+    if(listeners.length == 0){
+      return;
+    }
+    // the final update is never held back, the listeners should always hear of the complete splash
+    if(mLastFraction >= 0F && completionFraction < 1F){
+      if(frameTimeNanos - mLastUpdateTimeNanos < mMinUpdateIntervalNanos || completionFraction - mLastFraction < mMinUpdateDelta){
+        return;
+      }
+    }
+    mLastFraction = completionFraction;
+    mLastUpdateTimeNanos = frameTimeNanos;
+    
+    for(int i=0; i<listeners.length; ++i){
+      listeners[i].onUpdate(completionFraction);
+    }
+  }
+  
+  /**
+   * Notifies the listeners that the splash is over
+   */
+  public void dispatchEnd(){
+    ISplashListener[] listeners = mListeners;
+    for(int i=0; i<listeners.length; ++i){
+      listeners[i].onEnd();
+    }
+  }
+  
+  private int indexOf(ISplashListener listener){
+    for(int i=0; i<mListeners.length; ++i){
+      if(mListeners[i] == listener){
+        return i;
+      }
+    }
+    return -1;
+  }
+}
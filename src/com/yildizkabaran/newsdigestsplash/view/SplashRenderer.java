@@ -0,0 +1,846 @@
+package com.yildizkabaran.newsdigestsplash.view;
+
+import android.content.Context;
+import android.content.res.TypedArray;
+import android.graphics.Bitmap;
+import android.graphics.Canvas;
+import android.graphics.Paint;
+import android.graphics.Path;
+import android.graphics.Rect;
+import android.graphics.RectF;
+import android.graphics.Region;
+import android.os.Build;
+import android.util.AttributeSet;
+import android.util.Log;
+import android.view.View;
+import android.view.ViewManager;
+import android.view.ViewParent;
+
+import com.yildizkabaran.newsdigestsplash.BuildConfig;
+import com.yildizkabaran.newsdigestsplash.R;
+
+/**
+ * The drawing and animation state of the splash, independent of the view that hosts it. The host drives the renderer by giving it
+ * frame times through advance and drawing it onto its canvas, which lets the same animation be drawn on the UI thread by SplashView
+ * or on a dedicated render thread by SplashTextureView. A renderer must only be used from one thread at a time.
+ * @author yildizkabaran
+ *
+ */
+class SplashRenderer {
+  
+  private static final String TAG = "SplashRenderer";
+  
+  /** some adjustable parameters **/
+  private boolean mRemoveFromParentOnEnd = true; // a flag for the host view to remove itself from its parent once the animation is over
+  private float mCircleRadius = SplashView.DEFAULT_CIRCLE_RADIUS; // the radius of each individual small circle
+  private float mRotationRadius = SplashView.DEFAULT_ROTATION_RADIUS; // the radius of the large rotation circle
+  private int[] mCircleColors; // the color list of the circles, no default is provided here
+  private int mSplashBgColor; // the color of the background, the default is set in the constructor
+  private final SplashProgressDispatcher mDispatcher = new SplashProgressDispatcher(); // hands the splash start and progress to the listeners
+  private int mHoleMode = SplashView.DEFAULT_HOLE_MODE; // the method used for drawing the transparent hole
+  private boolean mUseCircleSprites = SplashView.DEFAULT_USE_CIRCLE_SPRITES; // a flag for drawing the rotating circles from a pre-rasterized atlas
+  
+  // the timeline keeps the animation math, the durations and the radii of the rotation are set on it directly
+  private final SplashTimeline mTimeline = new SplashTimeline();
+  private boolean mInitialized = false;
+  
+  /** some parameters to keep the current draw state, these are copied from the timeline on every advance **/
+  private float mHoleRadius = 0F;
+  private float mCurrentRotationAngle = 0F;
+  private float mCurrentRotationRadius;
+  private float mCurrentSingleCircleRadius;
+  
+  // use state pattern for drawing each phase more easily, the states are created once and reused, indexed by the timeline phase
+  private SplashState mState = null;
+  private final SplashState[] mStates = new SplashState[] {
+      new RotationState(), new MergingState(), new SingularityState(), new ExpandingState()
+  };
+  
+  // cache the objects so that we don't have to allocate during draw
+  private Paint mPaint = new Paint();
+  private Paint mPaintBackground = new Paint();
+  private Paint mPaintBackgroundFill = new Paint();
+  private Path mHolePath = new Path();
+  
+  // cache some numeric calculations
+  private int mWidth;
+  private int mHeight;
+  private float mCenterX;
+  private float mCenterY;
+  private float mDiagonalDist;
+  
+  // the geometry keeps the positions of the circles, one circle for each color or a number of particles for each color
+  private final SplashGeometry mGeometry = new SplashGeometry();
+  private Paint mPaintParticles = new Paint();
+  
+  // the atlas holds one pre-rasterized sprite of each colored circle side by side, it is rebuilt only when the radius or colors change
+  private Bitmap mCircleAtlas;
+  private int mCircleAtlasCellSize;
+  private Paint mPaintSprite = new Paint(Paint.FILTER_BITMAP_FLAG);
+  private Rect mSpriteSrcRect = new Rect();
+  private RectF mSpriteDstRect = new RectF();
+  
+  // the area covered by the ring on the last dirty rect query, the union of this and the current ring is all that changes between frames
+  private Rect mRingDirtyRect = new Rect();
+  private Rect mRingRect = new Rect();
+  private boolean mRingDirtyRectValid = false;
+  
+  /**
+   * Initializes the paints. Not much is done here since most variables already have set defaults
+   */
+  public SplashRenderer(){
+    // we need anti aliasing here, otherwise the circles will look bad
+    mPaint.setAntiAlias(true);
+    
+    // background paint needs to be a stroke paint in order to draw a transparent hole without using image resources
+    mPaintBackground.setStyle(Paint.Style.STROKE);
+    mPaintBackground.setAntiAlias(true);
+    
+    // the fill paint is used for the path hole mode, where the path itself has the hole in it
+    mPaintBackgroundFill.setStyle(Paint.Style.FILL);
+    mPaintBackgroundFill.setAntiAlias(true);
+    
+    // particles are drawn as points, a round cap turns each point into a circle as wide as the stroke
+    mPaintParticles.setAntiAlias(true);
+    mPaintParticles.setStyle(Paint.Style.STROKE);
+    mPaintParticles.setStrokeCap(Paint.Cap.ROUND);
+    mPaintParticles.setStrokeWidth(mCircleRadius * 2);
+    
+    // set background color using method so that the paint object gets the color set as well
+    // if attributes set a background color, this method will be called again with a new color
+    setSplashBackgroundColor(SplashView.DEFAULT_SPLASH_BG_COLOR);
+    
+    mGeometry.setParticlesPerColor(SplashView.DEFAULT_PARTICLES_PER_COLOR);
+    mTimeline.setCircleRadius(mCircleRadius);
+    mTimeline.setRotationRadius(SplashView.DEFAULT_ROTATION_RADIUS);
+    mTimeline.setRotationDuration(SplashView.DEFAULT_ROTATION_DURATION);
+    mTimeline.setSplashDuration(SplashView.DEFAULT_SPLASH_DURATION);
+  }
+  
+  /**
+   * Setup the custom attributes from XML
+   * @param context
+   * @param attrs
+   */
+  public void setupAttributes(Context context, AttributeSet attrs) {
+    TypedArray a = context.obtainStyledAttributes(attrs, R.styleable.NewsDigestSplashView);
+    
+    int numAttrs = a.getIndexCount();
+    for (int i = 0; i < numAttrs; ++i) {
+      int attr = a.getIndex(i);
+      switch (attr) {
+      case R.styleable.NewsDigestSplashView_removeFromParentOnEnd:
+        setRemoveFromParentOnEnd(a.getBoolean(i, SplashView.DEFAULT_REMOVE_FROM_PARENT_ON_END));
+        break;
+      case R.styleable.NewsDigestSplashView_circleRadius:
+        setCircleRadius(a.getDimensionPixelSize(i, SplashView.DEFAULT_CIRCLE_RADIUS));
+        break;
+      case R.styleable.NewsDigestSplashView_rotationRadius:
+        setRotationRadius(a.getDimensionPixelSize(i, SplashView.DEFAULT_ROTATION_RADIUS));
+        break;
+      case R.styleable.NewsDigestSplashView_rotationDuration:
+        setRotationDuration(a.getInteger(i, SplashView.DEFAULT_ROTATION_DURATION));
+        break;
+      case R.styleable.NewsDigestSplashView_splashBackgroundColor:
+        setSplashBackgroundColor(a.getColor(i, SplashView.DEFAULT_SPLASH_BG_COLOR));
+        break;
+      case R.styleable.NewsDigestSplashView_splashDuration:
+        setSplashDuration(a.getInteger(i, SplashView.DEFAULT_SPLASH_DURATION));
+        break;
+      case R.styleable.NewsDigestSplashView_holeMode:
+        setHoleMode(a.getInteger(i, SplashView.DEFAULT_HOLE_MODE));
+        break;
+      case R.styleable.NewsDigestSplashView_useCircleSprites:
+        setUseCircleSprites(a.getBoolean(i, SplashView.DEFAULT_USE_CIRCLE_SPRITES));
+        break;
+      case R.styleable.NewsDigestSplashView_particlesPerColor:
+        setParticlesPerColor(a.getInteger(i, SplashView.DEFAULT_PARTICLES_PER_COLOR));
+        break;
+      case R.styleable.NewsDigestSplashView_circleColors:
+        int arrayId = a.getResourceId(i, -1);
+        if(arrayId >= 0){
+          // TypedArray does not provide a method for obtaining integer arrays so using resources instead
+          int[] circleColors = context.getResources().getIntArray(arrayId);
+          if(circleColors != null){
+            setCircleColors(circleColors);
+          }
+        }
+        break;
+      }
+    }
+    a.recycle();
+  }
+  
+  /**
+   * Setter for the radius of each individual circle. Units in px
+   * @param circleRadius
+   */
+  public void setCircleRadius(float circleRadius){
+    mCircleRadius = circleRadius;
+    mTimeline.setCircleRadius(circleRadius);
+    mPaintParticles.setStrokeWidth(circleRadius * 2);
+    releaseCircleAtlas();
+  }
+  
+  /**
+   * Setter for the radius of the large rotation circle. Units in px
+   * @param rotationRadius
+   */
+  public void setRotationRadius(float rotationRadius){
+    mRotationRadius = rotationRadius;
+    mTimeline.setRotationRadius(rotationRadius);
+  }
+  
+  /**
+   * The size of the square that the ring of circles fits in while rotating. Units in px
+   */
+  public int getRingSize(){
+    return (int) Math.ceil((Math.abs(mRotationRadius) + mCircleRadius) * 2);
+  }
+  
+  /**
+   * Setter for the duration of the circles to complete one full rotation. Units in ms
+   * @param duration
+   */
+  public void setRotationDuration(long duration){
+    mTimeline.setRotationDuration(duration);
+  }
+  
+  /**
+   * Setter for the least time the circles rotate before the splash can start, so that an early call to splashAndDisappear still
+   * shows the rotation. 0 by default. Units in ms
+   * @param duration
+   */
+  public void setMinRotationDuration(long duration){
+    mTimeline.setMinRotationDuration(duration);
+  }
+  
+  /**
+   * Setter for the flag to start the merge from the last frame instead of the next one
+   * @param lowLatency
+   */
+  public void setLowLatency(boolean lowLatency){
+    mTimeline.setLowLatency(lowLatency);
+  }
+  
+  /**
+   * Setter for the background color. Do not use setBackgroundColor otherwise the view will not draw a transparent hole
+   * @param bgColor
+   */
+  public void setSplashBackgroundColor(int bgColor){
+    mSplashBgColor = bgColor;
+    mPaintBackground.setColor(mSplashBgColor);
+    mPaintBackgroundFill.setColor(mSplashBgColor);
+  }
+  
+  /**
+   * Setter for the duration of the splash animation to take place. The animation has 3 parts, so this duration will be divided to 3 for each animation
+   * @param duration
+   */
+  public void setSplashDuration(long duration){
+    mTimeline.setSplashDuration(duration);
+  }
+  
+  /**
+   * Setter for the colors of the rotating circles. If the given integers are not actual colors, no circles will be produced.
+   * @param circleColors
+   */
+  public void setCircleColors(int[] circleColors){
+    mCircleColors = circleColors;
+    mGeometry.setCircleCount(circleColors == null ? 0 : circleColors.length);
+    releaseCircleAtlas();
+  }
+  
+  /**
+   * Setter for the method used to draw the transparent hole, one of the HOLE_MODE constants. SplashView.HOLE_MODE_AUTO is used by default.
+   * @param holeMode
+   */
+  public void setHoleMode(int holeMode){
+    mHoleMode = holeMode;
+  }
+  
+  /**
+   * Setter for the flag to draw the rotating circles as sprites from a pre-rasterized atlas bitmap instead of drawing each circle
+   * anti aliased on every frame. This is mostly useful for software rendered canvases. Set to false by default.
+   * @param useCircleSprites
+   */
+  public void setUseCircleSprites(boolean useCircleSprites){
+    mUseCircleSprites = useCircleSprites;
+    if(!mUseCircleSprites){
+      releaseCircleAtlas();
+    }
+  }
+  
+  /**
+   * Setter for the number of circles of each color. With more than one, the circles are drawn as particles that fill the disc of the
+   * rotation radius, each color with a single batched draw call. Set to 1 by default, which draws the classic ring.
+   * @param particlesPerColor
+   */
+  public void setParticlesPerColor(int particlesPerColor){
+    mGeometry.setParticlesPerColor(particlesPerColor);
+  }
+  
+  /**
+   * Setter for the flag to remove or keep the host view after the animation is over. The renderer only keeps this flag for its host
+   * @param shouldRemove
+   */
+  public void setRemoveFromParentOnEnd(boolean shouldRemove){
+    mRemoveFromParentOnEnd = shouldRemove;
+  }
+  
+  public boolean isRemoveFromParentOnEnd(){
+    return mRemoveFromParentOnEnd;
+  }
+  
+  /**
+   * The dispatcher that notifies the listeners of the splash start and progress. The end of the splash is reported by advance
+   * returning false, so that the host can remove itself before it has the dispatcher notify the listeners of the end
+   */
+  public SplashProgressDispatcher getProgressDispatcher(){
+    return mDispatcher;
+  }
+  
+  /**
+   * Caches some dimensional values for the given draw size, so that they don't have to be calculated every time
+   * @param w
+   * @param h
+   */
+  public void setSize(int w, int h){
+    mWidth = w;
+    mHeight = h;
+    mCenterX = w / 2F;
+    mCenterY = h / 2F;
+    mDiagonalDist = (float) Math.sqrt(w * w + h * h) / 2;
+    mTimeline.setDiagonalDist(mDiagonalDist);
+    mGeometry.setCenter(mCenterX, mCenterY);
+    
+    // the ring moves with the center, and the host redraws completely after a size change anyway
+    mRingDirtyRectValid = false;
+  }
+  
+  /**
+   * Whether reset has been called, the host should call it right before the first draw
+   */
+  public boolean isInitialized(){
+    return mInitialized;
+  }
+  
+  /**
+   * Sets the initial animation state. This should be called right before the first draw for all parameters to be set correctly, and
+   * can be called again at any time to go back to the rotation. The state objects are created once and reused for every cycle
+   */
+  public void reset(){
+    // the timeline starts from the rotation phase with the initial values
+    mTimeline.reset();
+    syncWithTimeline();
+    mDispatcher.reset();
+    mInitialized = true;
+    mRingDirtyRectValid = false;
+  }
+  
+  /**
+   * Ends the rotation and starts the splash animation on the next call to advance, keeping the rotation angle where it was left
+   */
+  public void startSplash(){
+    if(!mInitialized){
+      reset();
+    }
+    mTimeline.startSplash();
+  }
+  
+  /**
+   * Puts the animation back into a saved state, see SplashTimeline.restore. The renderer is initialized with the restored state, so
+   * the host should not reset it again
+   * @param phase
+   * @param phaseElapsedNanos
+   * @param rotationAngle
+   * @param splashPending
+   */
+  public void restore(int phase, long phaseElapsedNanos, float rotationAngle, boolean splashPending){
+    mTimeline.restore(phase, phaseElapsedNanos, rotationAngle, splashPending);
+    syncWithTimeline();
+    mDispatcher.reset();
+    mInitialized = true;
+    mRingDirtyRectValid = false;
+  }
+  
+  /**
+   * The time spent in the current phase, used to save the animation state
+   */
+  public long getPhaseElapsedNanos(){
+    return mTimeline.getPhaseElapsedNanos();
+  }
+  
+  /**
+   * The duration of each of the splash phases
+   */
+  public long getPhaseDurationNanos(){
+    return mTimeline.getPhaseDurationNanos();
+  }
+  
+  /**
+   * The current radius of the transparent hole, from the center of the draw size. Units in px
+   */
+  public float getHoleRadius(){
+    return mHoleRadius;
+  }
+  
+  public int getSplashBackgroundColor(){
+    return mSplashBgColor;
+  }
+  
+  public float getRotationAngle(){
+    return mTimeline.getRotationAngle();
+  }
+  
+  /**
+   * Whether the splash has been started but is waiting for the minimum rotation to be done
+   */
+  public boolean isSplashPending(){
+    return mTimeline.isSplashPending();
+  }
+  
+  /**
+   * Holds the animation where it is, the next advance continues from the last frame no matter how much time has passed
+   */
+  public void pause(){
+    mTimeline.pause();
+  }
+  
+  /**
+   * Advances the timeline to the given frame time and notifies the listeners of the splash start and progress. Returns false once
+   * the splash is over
+   * @param frameTimeNanos
+   * @return
+   */
+  public boolean advance(long frameTimeNanos){
+    // there is nothing to animate before reset
+    if(!mInitialized){
+      return false;
+    }
+    
+    int previousPhase = mTimeline.getPhase();
+    boolean running = mTimeline.advance(frameTimeNanos);
+    int phase = mTimeline.getPhase();
+    syncWithTimeline();
+    
+    if(mDispatcher.hasListeners() && phase != SplashTimeline.PHASE_ROTATION){
+      // the splash starts when the rotation phase is left, even if the first splash phase was skipped within a single frame
+      if(previousPhase == SplashTimeline.PHASE_ROTATION){
+        mDispatcher.dispatchStart();
+      }
+      // the completion comes from the timeline for the whole splash, the dispatcher decides whether it is worth reporting
+      mDispatcher.dispatchUpdate(mTimeline.getCompletionFraction(), frameTimeNanos);
+    }
+    return running;
+  }
+  
+  /**
+   * The current phase of the animation, one of the SplashTimeline phases
+   */
+  public int getPhase(){
+    return mTimeline.getPhase();
+  }
+  
+  /**
+   * Copies the values computed by the timeline into the draw state
+   */
+  private void syncWithTimeline(){
+    int phase = mTimeline.getPhase();
+    if(phase < mStates.length){
+      mState = mStates[phase];
+    }
+    mCurrentRotationAngle = mTimeline.getRotationAngle();
+    mCurrentRotationRadius = mTimeline.getRotationRadius();
+    mCurrentSingleCircleRadius = mTimeline.getSingleCircleRadius();
+    mHoleRadius = mTimeline.getHoleRadius();
+  }
+  
+  /**
+   * Finds the area changed by the last advance. Returns true and sets the given rect if only a part of the bounds changed, or returns
+   * false if everything needs to be drawn again. While only the ring of circles changes, the rect is the bounding box of the ring together
+   * with the bounding box of the ring on the previous query so that the circles get erased from where they were
+   * @param outRect
+   * @return
+   */
+  public boolean getDirtyRect(Rect outRect){
+    if(mState == null || !mState.changesRingOnly()){
+      // any ring area from earlier frames is covered by a full redraw as well
+      mRingDirtyRectValid = false;
+      return false;
+    }
+    
+    // leave a couple of pixels for the anti aliased edges and the padding of the sprites
+    int extent = (int) Math.ceil(Math.abs(mCurrentRotationRadius) + mCircleRadius) + 2;
+    int centerX = (int) mCenterX;
+    int centerY = (int) mCenterY;
+    mRingRect.set(centerX - extent, centerY - extent, centerX + extent + 1, centerY + extent + 1);
+    
+    outRect.set(mRingRect);
+    if(mRingDirtyRectValid){
+      outRect.union(mRingDirtyRect);
+    }
+    
+    mRingDirtyRect.set(mRingRect);
+    mRingDirtyRectValid = true;
+    return true;
+  }
+  
+  /**
+   * Draws the current state. The actual draw state is delegated to State class and draw helper methods.
+   * @param canvas
+   */
+  public void draw(Canvas canvas){
+    // reset was never called
+    if(!mInitialized){
+      reset();
+    }
+    
+    // check to make sure circle colors are set, otherwise make sure nothing gets drawn in the rotation state
+    if(mCircleColors == null){
+      setCircleColors(new int[0]);
+    }
+    
+    // delegate draw to state
+    mState.drawState(canvas);
+  }
+  
+  /**
+   * Frees the resources held for drawing, they will be created again if the renderer draws again
+   */
+  public void release(){
+    if(mCircleAtlas != null){
+      mCircleAtlas.recycle();
+    }
+    releaseCircleAtlas();
+  }
+  
+  /**
+   * Draws the background either as a solid color or with a transparent hole in the middle
+   * @param canvas
+   */
+  private void drawBackground(Canvas canvas){
+    // check if there will be a hole
+    if(mHoleRadius > 0F){
+      // once the hole covers the whole view there is nothing left to draw
+      if(mHoleRadius >= mDiagonalDist){
+        return;
+      }
+      
+      switch(resolveHoleMode(canvas)){
+      case SplashView.HOLE_MODE_CLIP:
+        drawBackgroundClipped(canvas);
+        break;
+      case SplashView.HOLE_MODE_PATH:
+        drawBackgroundPath(canvas);
+        break;
+      default:
+        drawBackgroundStroke(canvas);
+        break;
+      }
+    } else {
+      // there is no hole so use the simplest method for drawing the background
+      canvas.drawColor(mSplashBgColor);
+    }
+  }
+  
+  /**
+   * Picks the hole mode to use for the given canvas. In auto mode, hardware canvases clip the hole out, which only fills the visible
+   * pixels, but clipPath is only supported on hardware canvases starting from API 18, so older versions fall back to the stroke.
+   * Software canvases fill an even-odd path, which keeps the anti aliased edge and only rasterizes the visible area.
+   * @param canvas
+   * @return
+   */
+  public int resolveHoleMode(Canvas canvas){
+    if(mHoleMode != SplashView.HOLE_MODE_AUTO){
+      return mHoleMode;
+    }
+    if(canvas.isHardwareAccelerated()){
+      return Build.VERSION.SDK_INT >= Build.VERSION_CODES.JELLY_BEAN_MR2 ? SplashView.HOLE_MODE_CLIP : SplashView.HOLE_MODE_STROKE;
+    }
+    return SplashView.HOLE_MODE_PATH;
+  }
+  
+  /**
+   * Draws the background with a hole by drawing a hollow circle with very thick walls
+   * @param canvas
+   */
+  private void drawBackgroundStroke(Canvas canvas){
+    // the way transparent circle is drawn is a little tricky. Instead of cutting a circle out of a rectangle
+    // a hollow circle with very thick walls is drawn instead. The thickness of the walls is determined by the
+    // stroke width of the paint. The circle radius and stroke with are calculated in order to draw the smallest
+    // possible circle that will look like a rectangle with a hole cut out of it in the given view
+    float strokeWidth = mDiagonalDist - mHoleRadius;
+    float circleRadius = mHoleRadius + strokeWidth / 2;
+    
+    mPaintBackground.setStrokeWidth(strokeWidth);
+    canvas.drawCircle(mCenterX, mCenterY, circleRadius, mPaintBackground);
+  }
+  
+  /**
+   * Draws the background with a hole by clipping the hole out of the canvas and filling the rest of it
+   * @param canvas
+   */
+  private void drawBackgroundClipped(Canvas canvas){
+    // the path is reused, rewind keeps its internal storage so nothing is allocated
+    mHolePath.rewind();
+    mHolePath.setFillType(Path.FillType.WINDING);
+    mHolePath.addCircle(mCenterX, mCenterY, mHoleRadius, Path.Direction.CW);
+    
+    int saveCount = canvas.save();
+    canvas.clipPath(mHolePath, Region.Op.DIFFERENCE);
+    canvas.drawColor(mSplashBgColor);
+    canvas.restoreToCount(saveCount);
+  }
+  
+  /**
+   * Draws the background with a hole by filling a path made of the view bounds and the hole. With the even-odd fill type the
+   * area inside the hole is left out
+   * @param canvas
+   */
+  private void drawBackgroundPath(Canvas canvas){
+    mHolePath.rewind();
+    mHolePath.setFillType(Path.FillType.EVEN_ODD);
+    mHolePath.addRect(0, 0, mWidth, mHeight, Path.Direction.CW);
+    mHolePath.addCircle(mCenterX, mCenterY, mHoleRadius, Path.Direction.CW);
+    
+    canvas.drawPath(mHolePath, mPaintBackgroundFill);
+  }
+  
+  /**
+   * Draws the given colored small circles around a large circle at a certain radius and angle.
+   * @param canvas
+   */
+  private void drawCircles(Canvas canvas){
+    mGeometry.update(mCurrentRotationAngle, mCurrentRotationRadius);
+    
+    if(mGeometry.isParticleMode()){
+      drawParticles(canvas);
+      return;
+    }
+    
+    if(mUseCircleSprites && drawCircleSprites(canvas)){
+      return;
+    }
+    
+    int numCircles = mCircleColors.length;
+    for(int i=0; i<numCircles; ++i){
+      // set the paint color and draw the circle
+      mPaint.setColor(mCircleColors[i]);
+      canvas.drawCircle(mGeometry.getCircleX(i), mGeometry.getCircleY(i), mCircleRadius, mPaint);
+    }
+  }
+  
+  /**
+   * Draws the particles of each color with a single drawPoints call, the round cap of the paint makes every point a circle
+   * @param canvas
+   */
+  private void drawParticles(Canvas canvas){
+    int numColors = mCircleColors.length;
+    int pointsPerColor = mGeometry.getParticlesPerColor() * 2;
+    float[] particlePoints = mGeometry.getParticlePoints();
+    for(int color=0; color<numColors; ++color){
+      mPaintParticles.setColor(mCircleColors[color]);
+      canvas.drawPoints(particlePoints, color * pointsPerColor, pointsPerColor, mPaintParticles);
+    }
+  }
+  
+  /**
+   * Draws the circles by copying their sprites from the atlas. Returns false if the atlas could not be created, in which case the
+   * circles should be drawn normally
+   * @param canvas
+   * @return
+   */
+  private boolean drawCircleSprites(Canvas canvas){
+    if(mCircleAtlas == null && !buildCircleAtlas()){
+      return false;
+    }
+    
+    int numCircles = mCircleColors.length;
+    float halfCell = mCircleAtlasCellSize / 2F;
+    for(int i=0; i<numCircles; ++i){
+      // the sprite of each circle sits in its own cell, centered on the circle position
+      int cellLeft = i * mCircleAtlasCellSize;
+      mSpriteSrcRect.set(cellLeft, 0, cellLeft + mCircleAtlasCellSize, mCircleAtlasCellSize);
+      float circleX = mGeometry.getCircleX(i);
+      float circleY = mGeometry.getCircleY(i);
+      mSpriteDstRect.set(circleX - halfCell, circleY - halfCell, circleX + halfCell, circleY + halfCell);
+      canvas.drawBitmap(mCircleAtlas, mSpriteSrcRect, mSpriteDstRect, mPaintSprite);
+    }
+    return true;
+  }
+  
+  /**
+   * Rasterizes each colored circle once into the atlas bitmap. Returns false if there is nothing to rasterize or the bitmap could
+   * not be allocated
+   * @return
+   */
+  private boolean buildCircleAtlas(){
+    int numCircles = mCircleColors.length;
+    // leave a pixel of padding around each circle so that the anti aliased edges are not cut off
+    mCircleAtlasCellSize = (int) Math.ceil(mCircleRadius * 2) + 2;
+    if(numCircles == 0 || mCircleRadius <= 0F){
+      return false;
+    }
+    
+    try {
+      mCircleAtlas = Bitmap.createBitmap(mCircleAtlasCellSize * numCircles, mCircleAtlasCellSize, Bitmap.Config.ARGB_8888);
+    } catch(OutOfMemoryError e){
+      if(BuildConfig.DEBUG){
+        Log.w(TAG, "could not allocate the circle atlas, drawing circles directly", e);
+      }
+      mUseCircleSprites = false;
+      return false;
+    }
+    
+    Canvas atlasCanvas = new Canvas(mCircleAtlas);
+    float halfCell = mCircleAtlasCellSize / 2F;
+    for(int i=0; i<numCircles; ++i){
+      mPaint.setColor(mCircleColors[i]);
+      atlasCanvas.drawCircle(i * mCircleAtlasCellSize + halfCell, halfCell, mCircleRadius, mPaint);
+    }
+    return true;
+  }
+  
+  /**
+   * Drops the atlas bitmap, it will be built again on the next draw if sprites are still used. The bitmap is not recycled here, the
+   * display list of a hardware accelerated host may still draw it until the host draws again. Only release recycles it
+   */
+  private void releaseCircleAtlas(){
+    mCircleAtlas = null;
+  }
+  
+  /**
+   * Draws a single circle in the middle of the screen with the given color and radius
+   * @param canvas
+   */
+  private void drawSingleCircle(Canvas canvas){
+    int singleCircleColor = mSplashBgColor;
+    int numColors = mCircleColors.length;
+    if(numColors > 0){
+      singleCircleColor = mCircleColors[numColors - 1];
+    }
+    mPaint.setColor(singleCircleColor);
+    canvas.drawCircle(mCenterX, mCenterY, mCurrentSingleCircleRadius, mPaint);
+  }
+  
+  /**
+   * Removes the given view from its parent view if it can. Generates a DEBUG log message if unsuccessful
+   * @param view
+   */
+  public static void removeFromParent(View view){
+    // get the view parent
+    ViewParent parent = view.getParent();
+    // check if a parent exists and that it implements the ViewManager interface
+    if(parent != null && parent instanceof ViewManager){
+      ViewManager viewManager = (ViewManager) parent;
+      // remove the view from its parent
+      viewManager.removeView(view);
+    } else if(BuildConfig.DEBUG) {
+      // even though we had to remove the view we either don't have a parent, or the parent does not implement the method
+      // necessary to remove the view, therefore create a warning log (but only do this if we are in DEBUG mode)
+      Log.w(TAG, "splash view not removed after animation ended because no ViewManager parent was found");
+    }
+  }
+  
+  /**
+   * An abstract class for taking care of drawing each phase of the animation. The values are computed by the timeline, states
+   * only decide what gets drawn
+   * @author yildizkabaran
+   *
+   */
+  private abstract class SplashState {
+    /**
+     * Whether the phase only changes the ring of circles, otherwise the whole bounds change
+     */
+    public boolean changesRingOnly(){
+      return false;
+    }
+    
+    public abstract void drawState(Canvas canvas);
+  }
+  
+  /**
+   * A state that draws the circles rotating.
+   * @author yildizkabaran
+   *
+   */
+  private class RotationState extends SplashState {
+    
+    /**
+     * Only the ring of circles changes during rotation
+     */
+    @Override
+    public boolean changesRingOnly(){
+      return true;
+    }
+    
+    /**
+     * Rotation state needs a background and all circles to be drawn
+     */
+    @Override
+    public void drawState(Canvas canvas){
+      drawBackground(canvas);
+      drawCircles(canvas);
+    }
+  }
+  
+  /**
+   * In this state the circles bounce back a little and then fall into the center of the view.
+   * This is the first state of the splash animation
+   * @author yildizkabaran
+   *
+   */
+  private class MergingState extends SplashState {
+    
+    /**
+     * Only the ring of circles changes while they are merging
+     */
+    @Override
+    public boolean changesRingOnly(){
+      return true;
+    }
+    
+    /**
+     * Merging requires the background and all circles to be drawn
+     */
+    @Override
+    public void drawState(Canvas canvas){
+      drawBackground(canvas);
+      drawCircles(canvas);
+    }
+  }
+  
+  /**
+   * This state is used to make the only circle visible at this time get a little larger then disappear into a single point
+   * @author yildizkabaran
+   *
+   */
+  private class SingularityState extends SplashState {
+    
+    /**
+     * SinglularityState requires a background and a single circle to be drawn
+     */
+    @Override
+    public void drawState(Canvas canvas){
+      drawBackground(canvas);
+      drawSingleCircle(canvas);
+    }
+  }
+  
+  /**
+   * This state draws an increasingly larger transparent hole in the view
+   * @author yildizkabaran
+   *
+   */
+  private class ExpandingState extends SplashState {
+    
+    /**
+     * The ExpandingState only needs a background
+     */
+    @Override
+    public void drawState(Canvas canvas){
+      drawBackground(canvas);
+    }
+  }
+}
@@ -0,0 +1,442 @@
+package com.yildizkabaran.newsdigestsplash.view;
+
+import android.content.Context;
+import android.graphics.Canvas;
+import android.graphics.Color;
+import android.graphics.PorterDuff;
+import android.graphics.Rect;
+import android.graphics.SurfaceTexture;
+import android.os.Handler;
+import android.os.HandlerThread;
+import android.os.Looper;
+import android.os.Process;
+import android.util.AttributeSet;
+import android.view.Choreographer;
+import android.view.TextureView;
+
+import com.yildizkabaran.newsdigestsplash.view.SplashView.ISplashListener;
+
+/**
+ * A sibling of SplashView that draws the same animation on a dedicated render thread into a TextureView, so that the circles keep
+ * rotating even while the UI thread is busy, for example while the content is being inflated. It accepts the same attributes and
+ * notifies the same listener as SplashView, the listener is always called on the UI thread.
+ * The setters should be called before the view is attached, changing them while the animation is running is not supported.
+ * @author yildizkabaran
+ *
+ */
+public class SplashTextureView extends TextureView implements TextureView.SurfaceTextureListener {
+  
+  /**
+   * Context constructor
+   * @param context
+   */
+  public SplashTextureView(Context context){
+    super(context);
+    initialize();
+  }
+  
+  /**
+   * Context and attributes constructor
+   * @param context
+   * @param attrs
+   */
+  public SplashTextureView(Context context, AttributeSet attrs) {
+    super(context, attrs);
+    initialize();
+    mRenderer.setupAttributes(context, attrs);
+  }
+  
+  /**
+   * Context, attributes, and style constructor
+   * @param context
+   * @param attrs
+   */
+  public SplashTextureView(Context context, AttributeSet attrs, int defStyleAttr) {
+    super(context, attrs, defStyleAttr);
+    initialize();
+    mRenderer.setupAttributes(context, attrs);
+  }
+  
+  // the renderer is only touched by the render thread once the thread is started
+  private final SplashRenderer mRenderer = new SplashRenderer();
+  private RenderThread mRenderThread;
+  
+  // the listener events are forwarded to the UI thread through this handler
+  private final Handler mMainHandler = new Handler(Looper.getMainLooper());
+  private volatile ISplashListener mSplashListener;
+  // kept once the splash is requested, so that it can be requested again from a new render thread
+  private boolean mSplashRequested = false;
+  
+  // the latest progress is kept here so that a single posted runnable can report it, no matter how many frames passed in between
+  private volatile float mLatestCompletionFraction;
+  private volatile boolean mUpdatePending = false;
+  
+  /**
+   * Notifies the listener of the splash start on the UI thread
+   */
+  private final Runnable mDispatchStart = new Runnable(){
+    @Override
+    public void run(){
+      ISplashListener listener = mSplashListener;
+      if(listener != null){
+        listener.onStart();
+      }
+    }
+  };
+  
+  /**
+   * Notifies the listener of the latest splash progress on the UI thread
+   */
+  private final Runnable mDispatchUpdate = new Runnable(){
+    @Override
+    public void run(){
+      mUpdatePending = false;
+      ISplashListener listener = mSplashListener;
+      if(listener != null){
+        listener.onUpdate(mLatestCompletionFraction);
+      }
+    }
+  };
+  
+  /**
+   * Removes the view if necessary and notifies the listener of the splash end on the UI thread
+   */
+  private final Runnable mDispatchEnd = new Runnable(){
+    @Override
+    public void run(){
+      stopRenderThread();
+    
+      // the splash is over so remove from parent if needed
+      if(mRenderer.isRemoveFromParentOnEnd()){
+        SplashRenderer.removeFromParent(SplashTextureView.this);
+      }
+    
+      ISplashListener listener = mSplashListener;
+      if(listener != null){
+        listener.onEnd();
+      }
+    }
+  };
+  
+  /**
+   * The renderer calls this listener on the render thread, it hands the events over to the UI thread
+   */
+  private final ISplashListener mRenderThreadListener = new ISplashListener(){
+    @Override
+    public void onStart(){
+      mMainHandler.post(mDispatchStart);
+    }
+    
+    @Override
+    public void onUpdate(float completionFraction){
+      mLatestCompletionFraction = completionFraction;
+      if(!mUpdatePending){
+        mUpdatePending = true;
+        mMainHandler.post(mDispatchUpdate);
+      }
+    }
+    
+    @Override
+    public void onEnd(){
+      // the end is reported by the renderer through advance, see RenderThread
+    }
+  };
+  
+  /**
+   * Initializes the view properties
+   */
+  private void initialize(){
+    // the splash has a transparent hole in it, so the texture must not be opaque
+    setOpaque(false);
+    setSurfaceTextureListener(this);
+    mRenderer.getProgressDispatcher().addListener(mRenderThreadListener);
+  }
+  
+  /**
+   * Setter for the radius of each individual circle. Units in px
+   * @param circleRadius
+   */
+  public void setCircleRadius(float circleRadius){
+    mRenderer.setCircleRadius(circleRadius);
+  }
+  
+  /**
+   * Setter for the radius of the large rotation circle. Units in px
+   * @param rotationRadius
+   */
+  public void setRotationRadius(float rotationRadius){
+    mRenderer.setRotationRadius(rotationRadius);
+  }
+  
+  /**
+   * Setter for the duration of the circles to complete one full rotation. Units in ms
+   * @param duration
+   */
+  public void setRotationDuration(long duration){
+    mRenderer.setRotationDuration(duration);
+  }
+  
+  /**
+   * Setter for the least time the circles rotate before the splash can start, so that an early call to splashAndDisappear still
+   * shows the rotation. 0 by default. Units in ms
+   * @param duration
+   */
+  public void setMinRotationDuration(long duration){
+    mRenderer.setMinRotationDuration(duration);
+  }
+  
+  /**
+   * Setter for the flag to start the merge from the current rotation angle on the very next frame, instead of showing one more frame
+   * of the circles where they were. Set to false by default.
+   * @param lowLatency
+   */
+  public void setLowLatency(boolean lowLatency){
+    mRenderer.setLowLatency(lowLatency);
+  }
+  
+  /**
+   * Setter for the background color of the splash
+   * @param bgColor
+   */
+  public void setSplashBackgroundColor(int bgColor){
+    mRenderer.setSplashBackgroundColor(bgColor);
+  }
+  
+  /**
+   * Setter for the duration of the splash animation to take place. The animation has 3 parts, so this duration will be divided to 3 for each animation
+   * @param duration
+   */
+  public void setSplashDuration(long duration){
+    mRenderer.setSplashDuration(duration);
+  }
+  
+  /**
+   * Setter for the colors of the rotating circles. If the given integers are not actual colors, no circles will be produced.
+   * @param circleColors
+   */
+  public void setCircleColors(int[] circleColors){
+    mRenderer.setCircleColors(circleColors);
+  }
+  
+  /**
+   * Setter for the method used to draw the transparent hole, one of the SplashView.HOLE_MODE constants. The canvas of a TextureView is
+   * never hardware accelerated, so SplashView.HOLE_MODE_AUTO will use the path mode.
+   * @param holeMode
+   */
+  public void setHoleMode(int holeMode){
+    mRenderer.setHoleMode(holeMode);
+  }
+  
+  /**
+   * Setter for the flag to draw the rotating circles as sprites from a pre-rasterized atlas bitmap. Set to false by default.
+   * @param useCircleSprites
+   */
+  public void setUseCircleSprites(boolean useCircleSprites){
+    mRenderer.setUseCircleSprites(useCircleSprites);
+  }
+  
+  /**
+   * Setter for the number of circles of each color. With more than one, the circles are drawn as particles that fill the disc of the
+   * rotation radius, each color with a single batched draw call. Set to 1 by default, which draws the classic ring.
+   * @param particlesPerColor
+   */
+  public void setParticlesPerColor(int particlesPerColor){
+    mRenderer.setParticlesPerColor(particlesPerColor);
+  }
+  
+  /**
+   * Setter for the least time between two progress updates to the listener. Updates are throttled on the render thread, before they
+   * are posted to the UI thread. 0 by default, which updates on every frame. Units in ms
+   * @param interval
+   */
+  public void setProgressUpdateInterval(long interval){
+    mRenderer.getProgressDispatcher().setMinUpdateInterval(interval);
+  }
+  
+  /**
+   * Setter for the least change in the completion fraction between two progress updates to the listener. 0 by default, which updates
+   * on every change. The final update of the splash is always delivered
+   * @param delta
+   */
+  public void setProgressUpdateDelta(float delta){
+    mRenderer.getProgressDispatcher().setMinUpdateDelta(delta);
+  }
+  
+  /**
+   * Setter for the flag to remove or keep the view after the animation is over. This is set to true by default.
+   * @param shouldRemove
+   */
+  public void setRemoveFromParentOnEnd(boolean shouldRemove){
+    mRenderer.setRemoveFromParentOnEnd(shouldRemove);
+  }
+  
+  /**
+   * Starts the splash animation. If a listener is provided it will notify the listener on animation events, on the UI thread
+   * @param listener
+   */
+  public void splashAndDisappear(ISplashListener listener){
+    mSplashListener = listener;
+    mSplashRequested = true;
+    
+    // without a surface the splash will start as soon as the render thread does
+    if(mRenderThread != null){
+      mRenderThread.startSplash();
+    }
+  }
+  
+  /**
+   * The surface is created when the view is attached, and again after it was destroyed by a detach or by the hardware resources being
+   * freed in the background. The animation continues from the phase it was paused in, only the very first surface starts it
+   */
+  @Override
+  public void onSurfaceTextureAvailable(SurfaceTexture surface, int width, int height){
+    // a splash that is already over has nothing left to draw, and its end was already reported
+    if(mRenderer.isInitialized() && mRenderer.getPhase() == SplashTimeline.PHASE_DONE){
+      return;
+    }
+    
+    // the render thread is not running yet, so the renderer can be set up from here
+    mRenderer.setSize(width, height);
+    if(!mRenderer.isInitialized()){
+      mRenderer.reset();
+    }
+    
+    mRenderThread = new RenderThread();
+    mRenderThread.start();
+    
+    // a request posted to the previous render thread may not have run before it quit, starting the splash again does nothing
+    // once it has started
+    if(mSplashRequested){
+      mRenderThread.startSplash();
+    }
+  }
+  
+  @Override
+  public void onSurfaceTextureSizeChanged(SurfaceTexture surface, int width, int height){
+    if(mRenderThread != null){
+      mRenderThread.setSize(width, height);
+    }
+  }
+  
+  @Override
+  public boolean onSurfaceTextureDestroyed(SurfaceTexture surface){
+    stopRenderThread();
+    // the render thread is gone, hold the animation where it was until a new surface is available
+    mRenderer.pause();
+    return true;
+  }
+  
+  @Override
+  public void onSurfaceTextureUpdated(SurfaceTexture surface){
+  }
+  
+  /**
+   * Stops the render thread and waits for it to finish, so that nothing is drawn onto a destroyed surface
+   */
+  private void stopRenderThread(){
+    if(mRenderThread == null){
+      return;
+    }
+    
+    mRenderThread.quit();
+    try {
+      mRenderThread.join();
+    } catch(InterruptedException e){
+      Thread.currentThread().interrupt();
+    }
+    mRenderThread = null;
+    mRenderer.release();
+  }
+  
+  /**
+   * A thread with its own looper and Choreographer that advances and draws the renderer on every display frame
+   * @author yildizkabaran
+   *
+   */
+  private class RenderThread extends HandlerThread implements Choreographer.FrameCallback {
+    
+    private Handler mHandler;
+    private boolean mFinished = false;
+    // cache the dirty rect so that we don't have to allocate on every frame
+    private final Rect mDirtyRect = new Rect();
+    
+    public RenderThread(){
+      super("SplashRenderThread", Process.THREAD_PRIORITY_DISPLAY);
+    }
+    
+    /**
+     * Starts the frame loop, Choreographer instances are per thread so this is the render thread's own Choreographer
+     */
+    @Override
+    protected void onLooperPrepared(){
+      Choreographer.getInstance().postFrameCallback(this);
+    }
+    
+    /**
+     * Returns the handler of the render thread, blocking until the looper is ready
+     * @return
+     */
+    private synchronized Handler getHandler(){
+      if(mHandler == null){
+        mHandler = new Handler(getLooper());
+      }
+      return mHandler;
+    }
+    
+    public void startSplash(){
+      getHandler().post(new Runnable(){
+        @Override
+        public void run(){
+          mRenderer.startSplash();
+        }
+      });
+    }
+    
+    public void setSize(final int width, final int height){
+      getHandler().post(new Runnable(){
+        @Override
+        public void run(){
+          mRenderer.setSize(width, height);
+        }
+      });
+    }
+    
+    @Override
+    public void doFrame(long frameTimeNanos){
+      if(mFinished){
+        return;
+      }
+    
+      if(mRenderer.advance(frameTimeNanos)){
+        drawFrame(mRenderer.getDirtyRect(mDirtyRect));
+        Choreographer.getInstance().postFrameCallback(this);
+      } else {
+        // the hole covers the whole view at the end, so clear it completely and let the UI thread finish up
+        mFinished = true;
+        drawFrame(false);
+        mMainHandler.post(mDispatchEnd);
+      }
+    }
+    
+    /**
+     * Draws the current state of the renderer onto the texture
+     * @param partial true if only the dirty rect needs to be drawn again
+     */
+    private void drawFrame(boolean partial){
+      Canvas canvas = partial ? lockCanvas(mDirtyRect) : lockCanvas();
+      if(canvas == null){
+        return;
+      }
+    
+      try {
+        // the texture keeps its previous content, so clear it before drawing the transparent parts again
+        canvas.drawColor(Color.TRANSPARENT, PorterDuff.Mode.CLEAR);
+        if(!mFinished){
+          mRenderer.draw(canvas);
+        }
+      } finally {
+        unlockCanvasAndPost(canvas);
+      }
+    }
+  }
+}
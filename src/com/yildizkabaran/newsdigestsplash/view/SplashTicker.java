@@ -0,0 +1,109 @@
+package com.yildizkabaran.newsdigestsplash.view;
+
+import java.util.ArrayList;
+
+import android.view.Choreographer;
+
+/**
+ * A process wide frame clock shared by all of the running splash drawables. However many drawables are animating, a single frame
+ * callback is posted per display frame and all of them are advanced with the same frame time, so their invalidations land in the
+ * same traversal. Listeners stay subscribed until they unsubscribe. Must only be used on the UI thread.
+ * @author yildizkabaran
+ *
+ */
+final class SplashTicker implements Choreographer.FrameCallback {
+
+  /**
+   * A simple interface to receive a tick on every display frame while subscribed
+   * @author yildizkabaran
+   *
+   */
+  static interface ITickListener {
+    public void onTick(long frameTimeNanos);
+  }
+  
+  private static SplashTicker sInstance;
+  
+  private final ArrayList<ITickListener> mListeners = new ArrayList<ITickListener>();
+  // the listeners are copied before dispatching so that they can unsubscribe from their tick, the copy is reused between frames
+  private ITickListener[] mDispatchBuffer = new ITickListener[4];
+  // the number of listeners in the copy while a tick is being dispatched, 0 otherwise
+  private int mDispatchCount = 0;
+  private boolean mFrameCallbackPosted = false;
+  
+  /**
+   * The shared ticker, created on first use
+   */
+  static SplashTicker getInstance(){
+    if(sInstance == null){
+      sInstance = new SplashTicker();
+    }
+    return sInstance;
+  }
+  
+  private SplashTicker(){
+  }
+  
+  /**
+   * Starts sending ticks to the given listener from the next frame on. Does nothing if it is already subscribed
+   * @param listener
+   */
+  void subscribe(ITickListener listener){
+    if(mListeners.contains(listener)){
+      return;
+    }
+    mListeners.add(listener);
+    if(!mFrameCallbackPosted){
+      mFrameCallbackPosted = true;
+      Choreographer.getInstance().postFrameCallback(this);
+    }
+  }
+  
+  /**
+   * Stops sending ticks to the given listener, the frame callback is removed once nobody is subscribed
+   * @param listener
+   */
+  void unsubscribe(ITickListener listener){
+    mListeners.remove(listener);
+    // a listener that is yet to tick in this frame is taken out of the copy, so that it does not tick after unsubscribing
+    for(int i=0; i<mDispatchCount; ++i){
+      if(mDispatchBuffer[i] == listener){
+        mDispatchBuffer[i] = null;
+      }
+    }
+    if(mListeners.isEmpty() && mFrameCallbackPosted){
+      mFrameCallbackPosted = false;
+      Choreographer.getInstance().removeFrameCallback(this);
+    }
+  }
+  
+  @Override
+  public void doFrame(long frameTimeNanos){
+    mFrameCallbackPosted = false;
+    
+    int count = mListeners.size();
+    if(mDispatchBuffer.length < count){
+      mDispatchBuffer = new ITickListener[Math.max(count, mDispatchBuffer.length * 2)];
+    }
+    for(int i=0; i<count; ++i){
+      mDispatchBuffer[i] = mListeners.get(i);
+    }
+    
+    mDispatchCount = count;
+    for(int i=0; i<count; ++i){
+      ITickListener listener = mDispatchBuffer[i];
+      mDispatchBuffer[i] = null;
+      // a listener that was unsubscribed by one that ticked before it has already been taken out of the copy
+      if(listener != null){
+        listener.onTick(frameTimeNanos);
+      }
+    }
+    mDispatchCount = 0;
+    
+    // listeners that unsubscribed or subscribed during the ticks are taken care of here
+    if(!mListeners.isEmpty() && !mFrameCallbackPosted){
+      mFrameCallbackPosted = true;
+      Choreographer.getInstance().postFrameCallback(this);
+    }
+  }
+}
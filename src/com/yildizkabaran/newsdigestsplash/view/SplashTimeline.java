@@ -0,0 +1,362 @@
+package com.yildizkabaran.newsdigestsplash.view;
+
+/**
+ * The animation math of the splash, free of any Android dependencies so that it can be run and measured on a plain JVM. Given frame
+ * times, the timeline finds the current phase and computes the rotation angle, the radius of the ring, the radius of the single circle
+ * and the radius of the transparent hole into primitive fields. Nothing is allocated after construction.
+ * @author yildizkabaran
+ *
+ */
+public class SplashTimeline {
+
+  private static final long NANOS_PER_MS = 1000000L;
+
+  /** the phases of the animation, in order **/
+  public static final int PHASE_ROTATION = 0; // the circles rotate until the splash is started
+  public static final int PHASE_MERGING = 1; // the circles bounce out and then fall into the center
+  public static final int PHASE_SINGULARITY = 2; // the single circle in the center enlarges then disappears
+  public static final int PHASE_EXPANDING = 3; // the transparent hole grows until it covers the whole view
+  public static final int PHASE_DONE = 4; // the splash is over
+  public static final int NUM_SPLASH_PHASES = 3; // the number of phases after the rotation
+  
+  /** the tension of the overshoot used by the merging and singularity phases **/
+  public static final float OVERSHOOT_TENSION = 6F;
+  
+  /** some adjustable parameters **/
+  private float mRotationRadius;
+  private float mCircleRadius;
+  private float mDiagonalDist;
+  private long mRotationDurationNanos;
+  private long mPhaseDurationNanos;
+  private long mMinRotationNanos;
+  private boolean mLowLatency = false;
+  
+  /** the current state of the timeline **/
+  private int mPhase = PHASE_ROTATION;
+  private long mPhaseStartTimeNanos = -1;
+  private float mPhaseFraction = 0F;
+  private float mRotationAngle = 0F;
+  private float mCurrentRotationRadius;
+  private float mCurrentSingleCircleRadius;
+  private float mHoleRadius = 0F;
+  private boolean mSplashRequested = false;
+  private long mLastElapsedNanos = 0;
+  private long mLastFrameTimeNanos = -1;
+  private boolean mPaused = false;
+  private long mRestoredElapsedNanos = 0;
+  
+  /**
+   * Setter for the radius of the large rotation circle
+   * @param rotationRadius
+   */
+  public void setRotationRadius(float rotationRadius){
+    mRotationRadius = rotationRadius;
+  }
+  
+  /**
+   * Setter for the radius of each individual circle
+   * @param circleRadius
+   */
+  public void setCircleRadius(float circleRadius){
+    mCircleRadius = circleRadius;
+  }
+  
+  /**
+   * Setter for the distance from the center to the corners, the hole stops growing at this radius
+   * @param diagonalDist
+   */
+  public void setDiagonalDist(float diagonalDist){
+    mDiagonalDist = diagonalDist;
+  }
+  
+  /**
+   * Setter for the duration of one complete rotation. Units in ms
+   * @param duration
+   */
+  public void setRotationDuration(long duration){
+    mRotationDurationNanos = duration * NANOS_PER_MS;
+  }
+  
+  /**
+   * Setter for the total duration of the splash. Each of the splash phases takes a third of it. Units in ms
+   * @param duration
+   */
+  public void setSplashDuration(long duration){
+    mPhaseDurationNanos = duration / NUM_SPLASH_PHASES * NANOS_PER_MS;
+  }
+  
+  /**
+   * Setter for the least time the circles rotate before the splash can start. If the splash is started earlier, it waits until this
+   * much rotation is done. Use the rotation duration to always show one full rotation. Units in ms
+   * @param duration
+   */
+  public void setMinRotationDuration(long duration){
+    mMinRotationNanos = duration * NANOS_PER_MS;
+  }
+  
+  /**
+   * Setter for the flag to start the merging phase from the last advanced frame instead of the next one, so that the next frame
+   * already shows the merge under way instead of the circles where they were. Set to false by default.
+   * @param lowLatency
+   */
+  public void setLowLatency(boolean lowLatency){
+    mLowLatency = lowLatency;
+  }
+  
+  /**
+   * Goes back to the start of the rotation phase with the initial values
+   */
+  public void reset(){
+    mPhase = PHASE_ROTATION;
+    mPhaseStartTimeNanos = -1;
+    mPhaseFraction = 0F;
+    mRotationAngle = 0F;
+    mCurrentRotationRadius = mRotationRadius;
+    mCurrentSingleCircleRadius = mCircleRadius;
+    mHoleRadius = 0F;
+    mSplashRequested = false;
+    mLastElapsedNanos = 0;
+    mLastFrameTimeNanos = -1;
+    mPaused = false;
+    mRestoredElapsedNanos = 0;
+  }
+  
+  /**
+   * Puts the timeline back into a state saved from getPhase, getPhaseElapsedNanos, getRotationAngle and isSplashPending. The values
+   * are computed right away so the restored state can be drawn before the next advance, which then continues from the elapsed time
+   * @param phase
+   * @param phaseElapsedNanos
+   * @param rotationAngle the angle the rotation was left at, the merging phase keeps it
+   * @param splashPending
+   */
+  public void restore(int phase, long phaseElapsedNanos, float rotationAngle, boolean splashPending){
+    reset();
+    if(phase < PHASE_ROTATION || phase > PHASE_DONE){
+      return;
+    }
+    
+    // the phases before the restored one are finished with their final values
+    for(int i=PHASE_MERGING; i<phase && i<PHASE_DONE; ++i){
+      mPhase = i;
+      updateSplashPhase(1F);
+    }
+    
+    mPhase = phase;
+    mPhaseFraction = 0F;
+    mSplashRequested = phase == PHASE_ROTATION && splashPending;
+    mRestoredElapsedNanos = Math.max(0, phaseElapsedNanos);
+    mLastElapsedNanos = mRestoredElapsedNanos;
+    if(phase == PHASE_ROTATION){
+      updateRotation(mRestoredElapsedNanos);
+    } else {
+      mRotationAngle = rotationAngle;
+      if(phase != PHASE_DONE && mPhaseDurationNanos > 0){
+        updateSplashPhase(Math.min(1F, (float) mRestoredElapsedNanos / mPhaseDurationNanos));
+      }
+    }
+  }
+  
+  /**
+   * The time spent in the current phase as of the last advance, used to save the state of the timeline
+   */
+  public long getPhaseElapsedNanos(){
+    if(mPhaseStartTimeNanos < 0 || mLastFrameTimeNanos < 0){
+      return mRestoredElapsedNanos;
+    }
+    return Math.max(0, mLastFrameTimeNanos - mPhaseStartTimeNanos);
+  }
+  
+  /**
+   * The duration of each of the splash phases
+   */
+  public long getPhaseDurationNanos(){
+    return mPhaseDurationNanos;
+  }
+  
+  /**
+   * Holds the animation at the last advanced frame. The next advance continues from where it was held instead of catching up with
+   * the time that passed in between, so the rotation angle and the splash progress are kept intact
+   */
+  public void pause(){
+    mPaused = true;
+  }
+  
+  /**
+   * Ends the rotation so that the merging phase starts on the next frame, or on the last one in low latency mode, keeping the
+   * rotation angle where it was left. If the minimum rotation is not done yet, the merging phase starts right when it is done instead
+   */
+  public void startSplash(){
+    if(mPhase != PHASE_ROTATION){
+      return;
+    }
+    if(mMinRotationNanos <= 0 || (mPhaseStartTimeNanos >= 0 && mLastElapsedNanos >= mMinRotationNanos)){
+      // a pause in between is still taken out by the next advance, which moves the start forward
+      enterPhase(PHASE_MERGING, mLowLatency && mPhaseStartTimeNanos >= 0 ? mLastFrameTimeNanos : -1);
+    } else {
+      mSplashRequested = true;
+    }
+  }
+  
+  /**
+   * Whether the splash has been started but is waiting for the minimum rotation to be done
+   */
+  public boolean isSplashPending(){
+    return mSplashRequested;
+  }
+  
+  /**
+   * Computes the current state entirely from the given frame time, moving on to the following phases within the same frame if the
+   * elapsed time covers them, so that no frame is lost on a phase handoff. Returns false once the splash is over
+   * @param frameTimeNanos
+   * @return
+   */
+  public boolean advance(long frameTimeNanos){
+    if(mPhase == PHASE_DONE){
+      return false;
+    }
+    
+    // the first frame of a phase marks its start time, a restored phase started as long ago as it had been running
+    if(mPhaseStartTimeNanos < 0){
+      mPhaseStartTimeNanos = frameTimeNanos - mRestoredElapsedNanos;
+      mRestoredElapsedNanos = 0;
+    }
+    
+    // after a pause the phase is moved forward by the time spent paused, so that this frame shows the same state as the last one
+    if(mPaused){
+      mPaused = false;
+      if(mLastFrameTimeNanos >= 0 && frameTimeNanos > mLastFrameTimeNanos){
+        mPhaseStartTimeNanos += frameTimeNanos - mLastFrameTimeNanos;
+      }
+    }
+    mLastFrameTimeNanos = frameTimeNanos;
+    
+    long elapsedNanos = frameTimeNanos - mPhaseStartTimeNanos;
+    if(mPhase == PHASE_ROTATION){
+      if(!mSplashRequested || elapsedNanos < mMinRotationNanos){
+        // the rotation never ends on its own, only startSplash can end it
+        mLastElapsedNanos = elapsedNanos;
+        updateRotation(elapsedNanos);
+        return true;
+      }
+      // stop the rotation exactly where the minimum ended, then carry the remaining time over to the merging phase
+      updateRotation(mMinRotationNanos);
+      mSplashRequested = false;
+      enterPhase(PHASE_MERGING, mPhaseStartTimeNanos + mMinRotationNanos);
+      elapsedNanos = frameTimeNanos - mPhaseStartTimeNanos;
+    }
+    
+    while(elapsedNanos >= mPhaseDurationNanos){
+      // finish the current phase with its final values, then carry the remaining time over to the next one
+      updateSplashPhase(1F);
+      elapsedNanos -= mPhaseDurationNanos;
+      enterPhase(mPhase + 1, mPhaseStartTimeNanos + mPhaseDurationNanos);
+      if(mPhase == PHASE_DONE){
+        return false;
+      }
+    }
+    
+    updateSplashPhase((float) elapsedNanos / mPhaseDurationNanos);
+    return true;
+  }
+  
+  private void enterPhase(int phase, long startTimeNanos){
+    mPhase = phase;
+    mPhaseStartTimeNanos = startTimeNanos;
+    mPhaseFraction = 0F;
+  }
+  
+  /**
+   * The angle goes linearly from 0 to 2PI within one rotation duration and then restarts from 0
+   * @param elapsedNanos
+   */
+  private void updateRotation(long elapsedNanos){
+    if(mRotationDurationNanos <= 0){
+      return;
+    }
+    mPhaseFraction = (float) (elapsedNanos % mRotationDurationNanos) / mRotationDurationNanos;
+    mRotationAngle = (float) (Math.PI * 2) * mPhaseFraction;
+  }
+  
+  /**
+   * Updates the value animated by the current splash phase for the given linear fraction of the phase
+   * @param fraction
+   */
+  private void updateSplashPhase(float fraction){
+    mPhaseFraction = fraction;
+    switch(mPhase){
+    case PHASE_MERGING:
+      // the overshoot is run in reverse, from rotation radius to the center, to get the bounce out then back in effect
+      mCurrentRotationRadius = mRotationRadius * overshoot(1F - fraction, OVERSHOOT_TENSION);
+      break;
+    case PHASE_SINGULARITY:
+      // the overshoot is run in reverse, from circle radius to 0, to get the enlarge then disappear effect
+      mCurrentSingleCircleRadius = mCircleRadius * overshoot(1F - fraction, OVERSHOOT_TENSION);
+      break;
+    case PHASE_EXPANDING:
+      // decelerate to give the effect that the transparent hole went into a bang
+      mHoleRadius = mDiagonalDist * decelerate(fraction);
+      break;
+    }
+  }
+  
+  /**
+   * The same curve as android.view.animation.OvershootInterpolator
+   * @param t
+   * @param tension
+   * @return
+   */
+  public static float overshoot(float t, float tension){
+    t -= 1F;
+    return t * t * ((tension + 1) * t + tension) + 1F;
+  }
+  
+  /**
+   * The same curve as android.view.animation.DecelerateInterpolator with a factor of 1
+   * @param t
+   * @return
+   */
+  public static float decelerate(float t){
+    return 1F - (1F - t) * (1F - t);
+  }
+  
+  public int getPhase(){
+    return mPhase;
+  }
+  
+  /**
+   * The linear fraction of the current phase, between 0 and 1
+   */
+  public float getPhaseFraction(){
+    return mPhaseFraction;
+  }
+  
+  /**
+   * The completion of the whole splash between 0 and 1. Each of the splash phases takes an equal share of the splash duration (see
+   * setSplashDuration), so every finished phase adds 1/NUM_SPLASH_PHASES and the current phase adds its linear fraction of that share
+   */
+  public float getCompletionFraction(){
+    if(mPhase == PHASE_ROTATION){
+      return 0F;
+    }
+    if(mPhase == PHASE_DONE){
+      return 1F;
+    }
+    return (mPhase - PHASE_MERGING + mPhaseFraction) / NUM_SPLASH_PHASES;
+  }
+  
+  public float getRotationAngle(){
+    return mRotationAngle;
+  }
+  
+  public float getRotationRadius(){
+    return mCurrentRotationRadius;
+  }
+  
+  public float getSingleCircleRadius(){
+    return mCurrentSingleCircleRadius;
+  }
+  
+  public float getHoleRadius(){
+    return mHoleRadius;
+  }
+}
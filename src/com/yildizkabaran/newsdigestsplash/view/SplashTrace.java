@@ -0,0 +1,114 @@
+package com.yildizkabaran.newsdigestsplash.view;
+
+import android.os.Build;
+import android.os.Trace;
+
+/**
+ * Marks the milestones of the splash, so that a slow start can be attributed to the loading code or to the animation. The splash
+ * marks its own milestones, and the host can mark milestones of its own with any name it likes, for instance when its Activity is
+ * created or its content is ready. Sections show up in systrace and Perfetto on API 18 and up, and every milestone is handed to a
+ * reporter, which does nothing by default. The times are in the time base of System.nanoTime, the same as the frame times. Must only
+ * be used on the UI thread.
+ * @author yildizkabaran
+ *
+ */
+public final class SplashTrace {
+
+  /**
+   * A simple interface to receive the milestones as they are marked
+   * @author yildizkabaran
+   *
+   */
+  public static interface IMilestoneReporter {
+    public void onMilestone(String milestone, long timeNanos);
+  }
+  
+  /** the milestones marked by the splash, the start of each phase is also the end of the one before it **/
+  public static final String MILESTONE_SPLASH_FIRST_DRAW = "SplashFirstDraw"; // the first draw of the splash view is done
+  public static final String MILESTONE_SPLASH_END = "SplashEnd"; // the listeners heard of the end
+  
+  // the milestone marked at the start of each SplashTimeline phase
+  private static final String[] PHASE_MILESTONES = {
+    "PhaseRotation", "PhaseMerging", "PhaseSingularity", "PhaseExpanding", "PhaseDone"
+  };
+  
+  /**
+   * The reporter used until another one is set, it drops the milestones
+   */
+  public static final IMilestoneReporter NO_OP_REPORTER = new IMilestoneReporter(){
+    @Override
+    public void onMilestone(String milestone, long timeNanos){
+    }
+  };
+  
+  private static final boolean TRACE_SUPPORTED = Build.VERSION.SDK_INT >= Build.VERSION_CODES.JELLY_BEAN_MR2;
+  
+  private static IMilestoneReporter sReporter = NO_OP_REPORTER;
+  
+  private SplashTrace(){
+  }
+  
+  /**
+   * Setter for the reporter that receives every milestone as it is marked, set to null to go back to the no-op reporter
+   * @param reporter
+   */
+  public static void setReporter(IMilestoneReporter reporter){
+    sReporter = reporter == null ? NO_OP_REPORTER : reporter;
+  }
+  
+  /**
+   * Starts a trace section on the current thread, it has to be ended with endSection on the same thread
+   * @param sectionName
+   */
+  public static void beginSection(String sectionName){
+    if(TRACE_SUPPORTED){
+      Trace.beginSection(sectionName);
+    }
+  }
+  
+  public static void endSection(){
+    if(TRACE_SUPPORTED){
+      Trace.endSection();
+    }
+  }
+  
+  /**
+   * Marks the milestone as reached now
+   * @param milestone
+   */
+  public static void mark(String milestone){
+    mark(milestone, System.nanoTime());
+  }
+  
+  /**
+   * Marks the milestone as reached at the given time, for instance the time of the frame that reached it. The milestone also shows
+   * up as an empty trace section, since there are no instant events before API 29
+   * @param milestone
+   * @param timeNanos
+   */
+  public static void mark(String milestone, long timeNanos){
+    if(TRACE_SUPPORTED){
+      Trace.beginSection(milestone);
+      Trace.endSection();
+    }
+    sReporter.onMilestone(milestone, timeNanos);
+  }
+  
+  /**
+   * Marks the start of the given SplashTimeline phase, which is also the end of the phase before it
+   * @param phase
+   * @param timeNanos
+   */
+  public static void markPhase(int phase, long timeNanos){
+    mark(getPhaseMilestone(phase), timeNanos);
+  }
+  
+  /**
+   * The name of the milestone marked at the start of the given SplashTimeline phase
+   * @param phase
+   * @return
+   */
+  public static String getPhaseMilestone(int phase){
+    return PHASE_MILESTONES[phase];
+  }
+}
@@ -1,35 +1,35 @@
 package com.yildizkabaran.newsdigestsplash.view;
 
 import android.animation.Animator;
-import android.animation.AnimatorListenerAdapter;
-import android.animation.ValueAnimator;
-import android.animation.ValueAnimator.AnimatorUpdateListener;
+import android.annotation.TargetApi;
+import android.app.Activity;
 import android.content.Context;
-import android.content.res.TypedArray;
+import android.content.ContextWrapper;
 import android.graphics.Canvas;
 import android.graphics.Color;
-import android.graphics.Paint;
+import android.graphics.Rect;
+import android.graphics.drawable.ColorDrawable;
+import android.graphics.drawable.Drawable;
+import android.os.Build;
+import android.os.Parcel;
+import android.os.Parcelable;
 import android.util.AttributeSet;
-import android.util.Log;
 import android.view.View;
-import android.view.ViewManager;
-import android.view.ViewParent;
+import android.view.ViewAnimationUtils;
+import android.view.ViewGroup;
+import android.view.ViewTreeObserver;
+import android.view.Window;
+import android.view.WindowManager;
 import android.view.animation.DecelerateInterpolator;
-import android.view.animation.LinearInterpolator;
-import android.view.animation.OvershootInterpolator;
-
-import com.yildizkabaran.newsdigestsplash.BuildConfig;
-import com.yildizkabaran.newsdigestsplash.R;
 
 /**
  * A simple view class that displays a number of colorful circles rotating, then eventually the circles will merge
- * together and enlarge as a transparent hole
+ * together and enlarge as a transparent hole. The animation itself is a SplashDrawable, the view only hosts it over its whole
+ * area and removes itself once the splash is over
  * @author yildizkabaran
  *
  */
 public class SplashView extends View {
-
-  private static final String TAG = "SplashView";
   
   /**
    * A simple interface to listen to the state of the splash animation
@@ -42,6 +42,15 @@ public class SplashView extends View {
     public void onEnd();
   }
   
+  /**
+   * An optional interface to receive the frame timing of the splash once it is over
+   * @author yildizkabaran
+   *
+   */
+  public static interface ISplashStatsListener {
+    public void onSplashStats(SplashFrameStats stats);
+  }
+  
   /**
    * Context constructor
    * @param context
@@ -50,7 +59,7 @@ public class SplashView extends View {
     super(context);
     initialize();
   }
-
+  
   /**
    * Context and attributes constructor
    * @param context
@@ -59,9 +68,9 @@ public class SplashView extends View {
   public SplashView(Context context, AttributeSet attrs) {
     super(context, attrs);
     initialize();
-    setupAttributes(attrs);
+    mDrawable.setupAttributes(context, attrs);
   }
-
+  
   /**
    * Context, attributes, and style constructor
    * @param context
@@ -70,7 +79,7 @@ public class SplashView extends View {
   public SplashView(Context context, AttributeSet attrs, int defStyleAttr) {
     super(context, attrs, defStyleAttr);
     initialize();
-    setupAttributes(attrs);
+    mDrawable.setupAttributes(context, attrs);
   }
   
   /** define some default values **/
@@ -81,79 +90,112 @@ public class SplashView extends View {
   public static final int DEFAULT_ROTATION_DURATION = 1200; // ms
   public static final int DEFAULT_SPLASH_DURATION = 1200; // ms
   
-  /** some adjustable parameters **/
-  private boolean mRemoveFromParentOnEnd = true; // a flag for removing the view from its parent once the animation is over
-  private float mRotationRadius = DEFAULT_ROTATION_RADIUS; // the radius of the large circle
-  private float mCircleRadius = DEFAULT_CIRCLE_RADIUS; // the radius of each individual small circle
-  private int[] mCircleColors; // the color list of the circles, no default is provided here
-  private long mRotationDuration = DEFAULT_ROTATION_DURATION; // the duration, in ms, for one complete rotation of the circles
-  private long mSplashDuration = DEFAULT_SPLASH_DURATION; // the duration, in ms, for the splash animation to go away
-  private int mSplashBgColor; // the color of the background, the default is set in initialize()
-  private ISplashListener mSplashListener; // reference to the listener for the splash events
+  /** the ways of drawing the transparent hole **/
+  public static final int HOLE_MODE_AUTO = 0; // pick the cheapest mode for the canvas being drawn on, CLIP where it is supported
+  public static final int HOLE_MODE_STROKE = 1; // a hollow circle with a very thick stroke, rasterizes nearly the whole view
+  public static final int HOLE_MODE_CLIP = 2; // clip the hole out and fill the rest, cheap but the hole edge is not anti aliased
+  public static final int HOLE_MODE_PATH = 3; // fill an even-odd path of the view bounds and the hole, only the visible area is rasterized
+  public static final int DEFAULT_HOLE_MODE = HOLE_MODE_AUTO;
+  public static final boolean DEFAULT_USE_CIRCLE_SPRITES = false;
+  public static final int DEFAULT_PARTICLES_PER_COLOR = 1; // a single circle of each color draws the classic ring
+  public static final boolean DEFAULT_USE_CIRCULAR_REVEAL = true; // reveal the content on the render thread where it is supported
+  public static final boolean DEFAULT_LOW_LATENCY = false;
+  public static final boolean DEFAULT_SKIP_COVERED_DRAWS = true; // hide what is under the splash until the hole opens
   
-  /** some parameters to keep the current draw state, these will be changed by animations **/
-  private float mHoleRadius = 0F;
-  private float mCurrentRotationAngle = 0F;
-  private float mCurrentRotationRadius;
-  private float mCurrentSingleCircleRadius;
+  // the drawable keeps all of the drawing and animation state and runs the frame clock, the view only hosts it
+  private final SplashDrawable mDrawable = new SplashDrawable();
+  // the listener given to splashAndDisappear, handed to the drawable when the splash starts
+  private ISplashListener mSplashListener;
   
-  // use state pattern for switching between animations more easily
-  private SplashState mState = null;
+  // the drawable reports the end to the view around the listeners, so that the view can remove itself before they hear of it
+  private final SplashDrawable.IHostCallback mHostCallback = new SplashDrawable.IHostCallback(){
+    @Override
+    public void onSplashExpanding(long frameTimeNanos){
+      // the hole is opening, what was covered has to show through it
+      updateCoveredDraws();
+      // the content starts showing through the hole on this frame
+      if(mDataReadyTimeNanos >= 0 && mContentLatencyNanos < 0){
+        mContentLatencyNanos = frameTimeNanos - mDataReadyTimeNanos;
+      }
+      startCircularReveal();
+    }
+    
+    @Override
+    public void onSplashEnding(){
+      endCircularReveal();
+      updateCoveredDraws();
+      
+      // the splash is over so remove from parent if needed
+      if(mDrawable.isRemoveFromParentOnEnd()){
+        SplashRenderer.removeFromParent(SplashView.this);
+      }
+    }
+    
+    @Override
+    public void onSplashEnded(){
+      // report the frame timing alongside the end
+      if(mStatsListener != null && mFrameStats != null){
+        mStatsListener.onSplashStats(mFrameStats);
+      }
+    }
+  };
   
-  // cache the objects so that we don't have to allocate during onDraw
-  private Paint mPaint = new Paint();
-  private Paint mPaintBackground = new Paint();
+  // the splash is started from a posted runnable, which is taken back if the view is detached before it runs. In low latency mode
+  // the splash is started right away if the view is attached
+  private boolean mLowLatency = DEFAULT_LOW_LATENCY;
+  private boolean mSplashStartPending = false;
+  private final Runnable mStartSplashRunnable = new Runnable(){
+    @Override
+    public void run(){
+      mSplashStartPending = false;
+      // the merge starts on the next frame of the clock, keeping the rotation angle where it was left
+      mDrawable.splashAndDisappear(mSplashListener);
+    }
+  };
   
-  // cache some numeric calculations
-  private float mCenterX;
-  private float mCenterY;
-  private float mDiagonalDist;
+  // the drawable only ticks while the view is attached to a visible window and is shown itself
+  private boolean mAttached = false;
+  // the drawable is started on the first draw, either from the rotation or from a restored state
+  private boolean mFirstDrawHandled = false;
   
-  /**
-   * Setup the custom attributes from XML
-   * @param attrs
-   */
-  private void setupAttributes(AttributeSet attrs) {
-    Context context = getContext();
-
-    TypedArray a = context.obtainStyledAttributes(attrs, R.styleable.NewsDigestSplashView);
-
-    int numAttrs = a.getIndexCount();
-    for (int i = 0; i < numAttrs; ++i) {
-      int attr = a.getIndex(i);
-      switch (attr) {
-      case R.styleable.NewsDigestSplashView_removeFromParentOnEnd:
-        setRemoveFromParentOnEnd(a.getBoolean(i, DEFAULT_REMOVE_FROM_PARENT_ON_END));
-        break;
-      case R.styleable.NewsDigestSplashView_circleRadius:
-        setCircleRadius(a.getDimensionPixelSize(i, DEFAULT_CIRCLE_RADIUS));
-        break;
-      case R.styleable.NewsDigestSplashView_rotationRadius:
-        setRotationRadius(a.getDimensionPixelSize(i, DEFAULT_ROTATION_RADIUS));
-        break;
-      case R.styleable.NewsDigestSplashView_rotationDuration:
-        setRotationDuration(a.getInteger(i, DEFAULT_ROTATION_DURATION));
-        break;
-      case R.styleable.NewsDigestSplashView_splashBackgroundColor:
-        setSplashBackgroundColor(a.getColor(i, DEFAULT_SPLASH_BG_COLOR));
-        break;
-      case R.styleable.NewsDigestSplashView_splashDuration:
-        setSplashDuration(a.getInteger(i, DEFAULT_SPLASH_DURATION));
-        break;
-      case R.styleable.NewsDigestSplashView_circleColors:
-        int arrayId = a.getResourceId(i, -1);
-        if(arrayId >= 0){
-          // TypedArray does not provide a method for obtaining integer arrays so using resources instead
-          int[] circleColors = getResources().getIntArray(arrayId);
-          if(circleColors != null){
-            setCircleColors(circleColors);
-          }
-        }
-        break;
-      }
+  // the expanding phase can reveal the view below instead of drawing the hole, the drawable keeps timing the splash meanwhile
+  private boolean mUseCircularReveal = DEFAULT_USE_CIRCULAR_REVEAL;
+  private View mRevealTarget;
+  private Animator mRevealAnimator;
+  private View mRevealingView;
+  private float mRevealingViewTranslationZ;
+  
+  // while the splash is opaque over everything, the view below it is hidden and the window background is taken off, so neither is
+  // drawn under the splash. Both are given back once the hole opens, the window background only as the plain splash color. The check
+  // is done again whenever the layout changes. Finding the visible frame of the window asks the window manager, so once the splash
+  // is found not to cover the window it is not asked again until the size of the splash changes or it is attached again
+  private boolean mSkipCoveredDraws = DEFAULT_SKIP_COVERED_DRAWS;
+  private View mCoveredView;
+  private Window mCoveredWindow;
+  private boolean mWindowNotCovered = false;
+  private ColorDrawable mUncoveredWindowBackground;
+  private final Rect mWindowFrame = new Rect();
+  private final int[] mLocation = new int[2];
+  private final ViewTreeObserver.OnGlobalLayoutListener mLayoutListener = new ViewTreeObserver.OnGlobalLayoutListener(){
+    @Override
+    public void onGlobalLayout(){
+      updateCoveredDraws();
     }
-    a.recycle();
-  }
+  };
+  private final Runnable mUpdateCoveredDrawsRunnable = new Runnable(){
+    @Override
+    public void run(){
+      updateCoveredDraws();
+    }
+  };
+  
+  // the time from the data being ready to the first frame of the expanding phase, in the time base of the frame times
+  private long mDataReadyTimeNanos = -1;
+  private long mContentLatencyNanos = -1;
+  
+  // frame timing is only recorded if a stats listener is set
+  private SplashFrameStats mFrameStats;
+  private ISplashStatsListener mStatsListener;
   
   /**
    * Initialized the view properties. Not much is done in this method since most variables already have set defaults
@@ -161,17 +203,17 @@ public class SplashView extends View {
   private void initialize(){
     // make the background transparent so that the view does not automatically draw any unwanted colors
     setBackgroundColor(Color.TRANSPARENT);
-    
-    // we need anti aliasing here, otherwise the circles will look bad
-    mPaint.setAntiAlias(true);
-    
-    // background paint needs to be a stroke paint in order to draw a transparent hole without using image resources
-    mPaintBackground.setStyle(Paint.Style.STROKE);
-    mPaintBackground.setAntiAlias(true);
-    
-    // set background color using method so that the paint object gets the color set as well
-    // if attributes set a background color, this method will be called again with a new color
-    setSplashBackgroundColor(DEFAULT_SPLASH_BG_COLOR);
+    // the drawable invalidates the view, only within its dirty bounds
+    mDrawable.setCallback(this);
+    mDrawable.setHostCallback(mHostCallback);
+    mDrawable.setTraceMilestones(true);
+  }
+  
+  /**
+   * The drawable that runs the animation, for hosts that want to control it directly
+   */
+  public SplashDrawable getSplashDrawable(){
+    return mDrawable;
   }
   
   /**
@@ -179,7 +221,7 @@ public class SplashView extends View {
    * @param circleRadius
    */
   public void setCircleRadius(float circleRadius){
-    mCircleRadius = circleRadius;
+    mDrawable.setCircleRadius(circleRadius);
   }
   
   /**
@@ -187,7 +229,7 @@ public class SplashView extends View {
    * @param rotationRadius
    */
   public void setRotationRadius(float rotationRadius){
-    mRotationRadius = rotationRadius;
+    mDrawable.setRotationRadius(rotationRadius);
   }
   
   /**
@@ -195,7 +237,16 @@ public class SplashView extends View {
    * @param duration
    */
   public void setRotationDuration(long duration){
-    mRotationDuration = duration;
+    mDrawable.setRotationDuration(duration);
+  }
+  
+  /**
+   * Setter for the least time the circles rotate before the splash can start, so that an early call to splashAndDisappear still
+   * shows the rotation. 0 by default. Units in ms
+   * @param duration
+   */
+  public void setMinRotationDuration(long duration){
+    mDrawable.setMinRotationDuration(duration);
   }
   
   /**
@@ -203,8 +254,7 @@ public class SplashView extends View {
    * @param bgColor
    */
   public void setSplashBackgroundColor(int bgColor){
-    mSplashBgColor = bgColor;
-    mPaintBackground.setColor(mSplashBgColor);
+    mDrawable.setSplashBackgroundColor(bgColor);
   }
   
   /**
@@ -212,7 +262,7 @@ public class SplashView extends View {
    * @param duration
    */
   public void setSplashDuration(long duration){
-    mSplashDuration = duration;
+    mDrawable.setSplashDuration(duration);
   }
   
   /**
@@ -220,7 +270,97 @@ public class SplashView extends View {
    * @param circleColors
    */
   public void setCircleColors(int[] circleColors){
-    mCircleColors = circleColors;
+    mDrawable.setCircleColors(circleColors);
+  }
+  
+  /**
+   * Setter for the method used to draw the transparent hole, one of the HOLE_MODE constants. HOLE_MODE_AUTO is used by default,
+   * which picks HOLE_MODE_CLIP on hardware accelerated canvases from API 18 on, HOLE_MODE_STROKE on older ones, and HOLE_MODE_PATH
+   * in software. The clipped hole is the cheapest to draw but its edge is not anti aliased, use HOLE_MODE_PATH to keep a smooth edge.
+   * @param holeMode
+   */
+  public void setHoleMode(int holeMode){
+    mDrawable.setHoleMode(holeMode);
+  }
+  
+  /**
+   * Setter for the flag to draw the rotating circles as sprites from a pre-rasterized atlas bitmap instead of drawing each circle
+   * anti aliased on every frame. This is mostly useful for software rendered canvases. Set to false by default.
+   * @param useCircleSprites
+   */
+  public void setUseCircleSprites(boolean useCircleSprites){
+    mDrawable.setUseCircleSprites(useCircleSprites);
+  }
+  
+  /**
+   * Setter for the number of circles of each color. With more than one, the circles are drawn as particles that fill the disc of the
+   * rotation radius, each color with a single batched draw call. Set to 1 by default, which draws the classic ring.
+   * @param particlesPerColor
+   */
+  public void setParticlesPerColor(int particlesPerColor){
+    mDrawable.setParticlesPerColor(particlesPerColor);
+  }
+  
+  /**
+   * Setter for the flag to start the splash with as little delay as possible. The splash is started right in splashAndDisappear
+   * instead of from a posted runnable, and the merge starts from the current rotation angle on the very next frame. Together this
+   * saves up to two frames between the call and the content showing. Set to false by default.
+   * @param lowLatency
+   */
+  public void setLowLatency(boolean lowLatency){
+    mLowLatency = lowLatency;
+    mDrawable.setLowLatency(lowLatency);
+  }
+  
+  /**
+   * Marks the time at which the data for the content was handed over, which is where getContentLatencyMs counts from. Call it as
+   * soon as the data is ready, before the content views are created, so that creating them is counted as well. If it is not called,
+   * the latency counts from splashAndDisappear
+   */
+  public void markDataReady(){
+    // the frame times are in the time base of System.nanoTime
+    mDataReadyTimeNanos = System.nanoTime();
+    mContentLatencyNanos = -1;
+  }
+  
+  /**
+   * The time from markDataReady, or from splashAndDisappear if it was not called, to the frame on which the content first showed
+   * through the hole, or -1 if it has not shown yet. This includes any wait for the minimum rotation. Units in ms
+   */
+  public float getContentLatencyMs(){
+    return mContentLatencyNanos < 0 ? -1F : mContentLatencyNanos / 1000000F;
+  }
+  
+  /**
+   * Setter for the flag to skip drawing what the splash covers while it is opaque. The view right below the splash (or the one given
+   * to setRevealTarget) is made invisible, and the window background is taken off once the splash has drawn its first frame, until
+   * the hole opens. The window background is then set to the plain splash background color. This only happens while the splash
+   * background color is fully opaque and the splash covers them completely, and the window background only if the view was created
+   * with the context of its Activity. Set to true by default.
+   * @param skipCoveredDraws
+   */
+  public void setSkipCoveredDraws(boolean skipCoveredDraws){
+    mSkipCoveredDraws = skipCoveredDraws;
+    updateCoveredDraws();
+  }
+  
+  /**
+   * Setter for the flag to open the hole with a circular reveal of the view below instead of drawing it. The reveal clips the view
+   * below on the render thread, so the exit keeps running smoothly while the UI thread is busy. It is only used on API 21 and up with
+   * hardware acceleration, the hole is drawn otherwise. The listeners are notified the same way in both cases. Set to true by default.
+   * @param useCircularReveal
+   */
+  public void setUseCircularReveal(boolean useCircularReveal){
+    mUseCircularReveal = useCircularReveal;
+  }
+  
+  /**
+   * Setter for the view that the circular reveal shows, it should be a sibling of this view with the same parent. When it is not set,
+   * the sibling drawn right below this view is revealed
+   * @param revealTarget
+   */
+  public void setRevealTarget(View revealTarget){
+    mRevealTarget = revealTarget;
   }
   
   /**
@@ -229,28 +369,107 @@ public class SplashView extends View {
    * @param shouldRemove
    */
   public void setRemoveFromParentOnEnd(boolean shouldRemove){
-    mRemoveFromParentOnEnd = shouldRemove;
+    mDrawable.setRemoveFromParentOnEnd(shouldRemove);
+  }
+  
+  /**
+   * Setter for the listener that receives the frame timing of the splash right after the splash listeners hear of the end. Frame timing is only
+   * recorded while a listener is set, set to null to stop recording.
+   * @param listener
+   */
+  public void setFrameStatsListener(ISplashStatsListener listener){
+    mStatsListener = listener;
+    if(listener == null){
+      mFrameStats = null;
+      mDrawable.setFrameStats(null);
+      return;
+    }
+    
+    if(mFrameStats == null){
+      mFrameStats = new SplashFrameStats();
+      // dropped frames are counted against the refresh rate of the display
+      WindowManager windowManager = (WindowManager) getContext().getSystemService(Context.WINDOW_SERVICE);
+      if(windowManager != null){
+        mFrameStats.setRefreshRate(windowManager.getDefaultDisplay().getRefreshRate());
+      }
+    }
+    mDrawable.setFrameStats(mFrameStats);
+  }
+  
+  /**
+   * Adds a listener to be notified of the splash start, progress and end, along with the one given to splashAndDisappear. Listeners
+   * are notified in the order they were added
+   * @param listener
+   */
+  public void addSplashListener(ISplashListener listener){
+    mDrawable.addSplashListener(listener);
+  }
+  
+  public void removeSplashListener(ISplashListener listener){
+    mDrawable.removeSplashListener(listener);
+  }
+  
+  /**
+   * Setter for the least time between two progress updates to the listeners. 0 by default, which updates on every frame. Units in ms
+   * @param interval
+   */
+  public void setProgressUpdateInterval(long interval){
+    mDrawable.setProgressUpdateInterval(interval);
+  }
+  
+  /**
+   * Setter for the least change in the completion fraction between two progress updates to the listeners, for instance 0.1 to be
+   * updated about 10 times per splash. 0 by default, which updates on every change. The final update of the splash is always delivered
+   * @param delta
+   */
+  public void setProgressUpdateDelta(float delta){
+    mDrawable.setProgressUpdateDelta(delta);
   }
   
   /**
-   * Starts the splash animation. If a listener is provided it will notify the listener on animation events
+   * Starts the splash animation. If a listener is provided it will notify the listener on animation events, in place of the listener
+   * given to the previous call
    * @param listener
    */
   public void splashAndDisappear(final ISplashListener listener){
     mSplashListener = listener;
-    
-    if(mState != null && mState instanceof RotationState){
-      RotationState rotationState = (RotationState) mState;
-      rotationState.cancel();
+    // without a mark from the host the latency counts from here
+    if(mDataReadyTimeNanos < 0){
+      markDataReady();
     }
     
+    if(mLowLatency && mAttached){
+      mStartSplashRunnable.run();
+      return;
+    }
+    mSplashStartPending = true;
     // post this to the view so that the animation does not immediately try to start in case the UI is busy
-    post(new Runnable(){
-      @Override
-      public void run(){
-        mState = new MergingState();
-      }
-    });
+    post(mStartSplashRunnable);
+  }
+  
+  /**
+   * Takes the view back to the rotating circles so that the splash can be run again with splashAndDisappear, for instance as a
+   * refresh or section switch transition. The drawable and all of its state objects are reused, so a new cycle does not allocate. Use
+   * setRemoveFromParentOnEnd(false) to keep the view around between cycles
+   */
+  public void restart(){
+    // a splash that was requested but not started yet belongs to the previous cycle
+    removeCallbacks(mStartSplashRunnable);
+    mSplashStartPending = false;
+    mDataReadyTimeNanos = -1;
+    mContentLatencyNanos = -1;
+    endCircularReveal();
+    // every cycle reports its own frame stats
+    if(mFrameStats != null){
+      mFrameStats.reset();
+    }
+    
+    mDrawable.reset();
+    if(mFirstDrawHandled){
+      mDrawable.start();
+    }
+    // the splash covers everything again
+    updateCoveredDraws();
   }
   
   /**
@@ -259,367 +478,361 @@ public class SplashView extends View {
   @Override
   protected void onSizeChanged (int w, int h, int oldw, int oldh) {
     super.onSizeChanged(w, h, oldw, oldh);
-    
-    mCenterX = w / 2F;
-    mCenterY = h / 2F;
-    mDiagonalDist = (float) Math.sqrt(w * w + h * h) / 2;
+    mDrawable.setBounds(0, 0, w, h);
+    mWindowNotCovered = false;
   }
   
   /**
-   * Called right before first onDraw takes place and sets the initial animation state. mState must be null at this point for this to work.
-   * This is necessary for all parameters to be set correctly. Otherwise, for example, if the RotationState is constructed before animation duration is set, the
-   * set value will not have an effect.
+   * The drawable resumes from where it was paused if it was running when the view was detached, and a splash that was requested
+   * before the view got detached is started again
    */
-  private void handleFirstDraw(){
-    // since this is the first draw the state is rotation state
-    mState = new RotationState();
-    
-    // start at 0 degrees value, RotationState will change this value
-    mCurrentRotationAngle = 0F;
-    // initially there is no hole, ExpandingState will change this value
-    mHoleRadius = 0F;
-    // initially rotation radius is at standard value, MergingState will change this value
-    mCurrentRotationRadius = mRotationRadius;
-    // initially single circle is at standard value, SingularityState will change this value
-    mCurrentSingleCircleRadius = mCircleRadius;
+  @Override
+  protected void onAttachedToWindow(){
+    super.onAttachedToWindow();
+    mAttached = true;
+    mWindowNotCovered = false;
+    if(mSplashStartPending){
+      post(mStartSplashRunnable);
+    }
+    updateDrawableVisibility();
+    getViewTreeObserver().addOnGlobalLayoutListener(mLayoutListener);
   }
   
   /**
-   * Draws the current state. The actual draw state is delegated to State class and draw helper methods.
+   * A detached view can not be drawn, so the drawable is paused and everything that could keep the view alive from outside is let
+   * go of: the subscription to the shared ticker and the posted splash start. The drawing resources are freed as well, they are
+   * created again on the next draw
    */
   @Override
-  protected void onDraw(Canvas canvas){
-    // if mState is null then this is the first call to draw
-    if(mState == null){
-      handleFirstDraw();
+  protected void onDetachedFromWindow(){
+    mAttached = false;
+    removeCallbacks(mStartSplashRunnable);
+    removeCallbacks(mUpdateCoveredDrawsRunnable);
+    getViewTreeObserver().removeOnGlobalLayoutListener(mLayoutListener);
+    endCircularReveal();
+    // a detached splash covers nothing
+    uncoverDraws();
+    updateDrawableVisibility();
+    mDrawable.release();
+    super.onDetachedFromWindow();
+  }
+  
+  /**
+   * Pauses the animation while the window is hidden, for instance when the activity is in the background
+   */
+  @Override
+  protected void onWindowVisibilityChanged(int visibility){
+    super.onWindowVisibilityChanged(visibility);
+    updateDrawableVisibility();
+  }
+  
+  /**
+   * Pauses the animation while this view or one of its parents is not visible
+   */
+  @Override
+  protected void onVisibilityChanged(View changedView, int visibility){
+    super.onVisibilityChanged(changedView, visibility);
+    // before API 24 the constructor of View already calls this, before any of our fields are assigned
+    if(mDrawable == null){
+      return;
     }
-    
-    // check to make sure circle colors are set, otherwise make sure nothing gets drawn in the rotation state
-    if(mCircleColors == null){
-      mCircleColors = new int[0];
+    updateDrawableVisibility();
+    // a hidden splash covers nothing
+    updateCoveredDraws();
+  }
+  
+  /**
+   * The drawable keeps its rotation angle and splash progress while it is not visible, and continues from the same frame
+   */
+  private void updateDrawableVisibility(){
+    boolean visible = mAttached && getWindowVisibility() == VISIBLE && isShown();
+    mDrawable.setVisible(visible, false);
+  }
+  
+  @Override
+  protected boolean verifyDrawable(Drawable who){
+    return who == mDrawable || super.verifyDrawable(who);
+  }
+  
+  /**
+   * While the view below is being revealed it covers the hole, and nothing else changes, so the view is not drawn again
+   */
+  @Override
+  public void invalidateDrawable(Drawable who){
+    if(who == mDrawable && mRevealAnimator != null){
+      return;
     }
+    super.invalidateDrawable(who);
+  }
+  
+  /**
+   * Starts revealing the view below from the center of the hole if the device supports it, otherwise the drawable goes on to draw the
+   * hole. The view below is raised above this one for the length of the reveal, so that it covers the hole as it grows
+   */
+  private void startCircularReveal(){
+    if(!mUseCircularReveal || Build.VERSION.SDK_INT < Build.VERSION_CODES.LOLLIPOP || !isHardwareAccelerated()){
+      return;
+    }
+    View target = findRevealTarget();
+    if(target == null || target.getVisibility() != VISIBLE || target.getWidth() <= 0 || target.getHeight() <= 0){
+      return;
+    }
+    startCircularReveal(target);
+  }
+  
+  @TargetApi(Build.VERSION_CODES.LOLLIPOP)
+  private void startCircularReveal(View target){
+    // the center of the hole in the coordinates of the target, both views are children of the same parent
+    int centerX = (int) (getX() + getWidth() / 2F - target.getX());
+    int centerY = (int) (getY() + getHeight() / 2F - target.getY());
+    float endRadius = (float) Math.hypot(Math.max(centerX, target.getWidth() - centerX), Math.max(centerY, target.getHeight() - centerY));
+    
+    // the reveal picks up from the hole as it is now and ends with the phase, on the same curve as the drawn hole
+    long remainingNanos = Math.max(0, mDrawable.getPhaseDurationNanos() - mDrawable.getPhaseElapsedNanos());
+    Animator reveal = ViewAnimationUtils.createCircularReveal(target, centerX, centerY, mDrawable.getHoleRadius(), endRadius);
+    reveal.setDuration(remainingNanos / 1000000L);
+    reveal.setInterpolator(new DecelerateInterpolator());
     
-    // delegate draw to state
-    mState.drawState(canvas);
+    mRevealingView = target;
+    mRevealingViewTranslationZ = target.getTranslationZ();
+    target.setTranslationZ(getZ() + 1F - target.getElevation());
+    mRevealAnimator = reveal;
+    reveal.start();
   }
   
   /**
-   * Draws the background either as a solid color or with a transparent hole in the middle
-   * @param canvas
+   * Stops the circular reveal, if there is one, and puts the revealed view back below this one. The revealed view is shown in full
    */
-  private void drawBackground(Canvas canvas){
-    // check if there will be a hole
-    if(mHoleRadius > 0F){
-      // the way transparent circle is drawn is a little tricky. Instead of cutting a circle out of a rectangle
-      // a hollow circle with very thick walls is drawn instead. The thickness of the walls is determined by the
-      // stroke width of the paint. The circle radius and stroke with are calculated in order to draw the smallest
-      // possible circle that will look like a rectangle with a hole cut out of it in the given view
-      float strokeWidth = mDiagonalDist - mHoleRadius;
-      float circleRadius = mHoleRadius + strokeWidth / 2;
-      
-      mPaintBackground.setStrokeWidth(strokeWidth);
-      canvas.drawCircle(mCenterX, mCenterY, circleRadius, mPaintBackground);
-    } else {
-      // there is no hole so use the simplest method for drawing the background
-      canvas.drawColor(mSplashBgColor);
+  @TargetApi(Build.VERSION_CODES.LOLLIPOP)
+  private void endCircularReveal(){
+    if(mRevealAnimator == null){
+      return;
     }
+    mRevealAnimator.cancel();
+    mRevealAnimator = null;
+    mRevealingView.setTranslationZ(mRevealingViewTranslationZ);
+    mRevealingView = null;
+    // the frames skipped during the reveal are drawn again, in case the view stays around
+    invalidate();
   }
   
   /**
-   * Draws the given colored small circles around a large circle at a certain radius and angle.
-   * @param canvas
+   * Hides the view below and takes off the window background while the splash is opaque over them, and gives them back otherwise
    */
-  private void drawCircles(Canvas canvas){
-    // number of circles provided, this value could be cached in setCircleColors but does not really hurt much
-    int numCircles = mCircleColors.length;
-    // calculate the angle between each circle, angles are in radians
-    float rotationAngle = (float) (2 * Math.PI / numCircles);
-    for(int i=0; i<numCircles; ++i){
-      // calculate the circle angle using the color position and angle offset
-      double angle = mCurrentRotationAngle + (i * rotationAngle);
-      // convert the coordinates into cartesian coordinates using simple trigonometry
-      double circleX = mCenterX + mCurrentRotationRadius * Math.sin(angle);
-      double circleY = mCenterY - mCurrentRotationRadius * Math.cos(angle);
-      
-      // set the paint color and draw the circle
-      mPaint.setColor(mCircleColors[i]);
-      canvas.drawCircle((float) circleX, (float) circleY, mCircleRadius, mPaint);
+  private void updateCoveredDraws(){
+    int phase = mDrawable.getPhase();
+    boolean opaque = mSkipCoveredDraws && mAttached && mFirstDrawHandled && phase < SplashTimeline.PHASE_EXPANDING
+        && Color.alpha(mDrawable.getSplashBackgroundColor()) == 255 && getAlpha() >= 1F && isShown();
+    if(!opaque){
+      uncoverDraws();
+      return;
+    }
+    
+    // the view below, the same one that the circular reveal shows
+    View below = findRevealTarget();
+    if(below != mCoveredView){
+      uncoverView();
+      if(below != null && below.getVisibility() == VISIBLE && coversView(below)){
+        below.setVisibility(INVISIBLE);
+        mCoveredView = below;
+      }
+    }
+    
+    if(mCoveredWindow == null && !mWindowNotCovered && coversWindow()){
+      Window window = findWindow();
+      if(window != null){
+        window.setBackgroundDrawable(null);
+        mCoveredWindow = window;
+      }
     }
   }
   
   /**
-   * Draws a single circle in the middle of the screen with the given color and radius
-   * @param canvas
+   * Gives back the view below and the window background, if they were covered. The window background is given back as the plain
+   * splash background color instead of what it was. The content is about to show through the hole, and the window background of a
+   * splash theme is a picture of the splash, which must not show through along with it
    */
-  private void drawSingleCircle(Canvas canvas){
-    int singleCircleColor = mSplashBgColor;
-    int numColors = mCircleColors.length;
-    if(numColors > 0){
-      singleCircleColor = mCircleColors[numColors - 1];
+  private void uncoverDraws(){
+    uncoverView();
+    if(mCoveredWindow != null){
+      int bgColor = mDrawable.getSplashBackgroundColor();
+      if(mUncoveredWindowBackground == null){
+        mUncoveredWindowBackground = new ColorDrawable(bgColor);
+      } else {
+        mUncoveredWindowBackground.setColor(bgColor);
+      }
+      mCoveredWindow.setBackgroundDrawable(mUncoveredWindowBackground);
+      mCoveredWindow = null;
     }
-    mPaint.setColor(singleCircleColor);
-    canvas.drawCircle(mCenterX, mCenterY, mCurrentSingleCircleRadius, mPaint);
   }
   
   /**
-   * Checks preferences and removes the view from its parent view if it can. Generates a DEBUG log message if unsuccessful
+   * Shows the view below again, but only if it is still hidden by the splash. If the app changed its visibility in the meantime, for
+   * instance hiding it after its content failed to load, the app's choice is kept
    */
-  private void removeFromParentIfNecessary(){
-    // check if we need to remove the view on animation end
-    if(mRemoveFromParentOnEnd){
-      // get the view parent
-      ViewParent parent = getParent();
-      // check if a parent exists and that it implements the ViewManager interface
-      if(parent != null && parent instanceof ViewManager){
-        ViewManager viewManager = (ViewManager) parent;
-        // remove the view from its parent
-        viewManager.removeView(SplashView.this);
-      } else if(BuildConfig.DEBUG) {
-        // even though we had to remove the view we either don't have a parent, or the parent does not implement the method
-        // necessary to remove the view, therefore create a warning log (but only do this if we are in DEBUG mode)
-        Log.w(TAG, "splash view not removed after animation ended because no ViewManager parent was found");
+  private void uncoverView(){
+    if(mCoveredView != null){
+      if(mCoveredView.getVisibility() == INVISIBLE){
+        mCoveredView.setVisibility(VISIBLE);
       }
+      mCoveredView = null;
     }
   }
   
   /**
-   * An abstract class for taking care of the current animation and draw state
-   * @author yildizkabaran
-   *
+   * Whether this view covers all of the given view, which has the same parent
    */
-  private abstract class SplashState {
-    public abstract void drawState(Canvas canvas);
+  private boolean coversView(View view){
+    return getX() <= view.getX() && getY() <= view.getY() && getX() + getWidth() >= view.getX() + view.getWidth()
+        && getY() + getHeight() >= view.getY() + view.getHeight();
   }
   
   /**
-   * A state that contains an infinitely looping animator for repeated rotation.
-   * @author yildizkabaran
-   *
+   * Whether this view covers all of the visible part of the window, the part under opaque system bars does not need covering
    */
-  private class RotationState extends SplashState {
-    private ValueAnimator mAnimator;
-    
-    /**
-     * The constructor takes care of creating, setting up, and starting the animator
-     */
-    public RotationState(){
-      // make a new animator that will go from 0 to 2PI
-      mAnimator = ValueAnimator.ofFloat(0, (float) (Math.PI * 2));
-      // set the requested duration, if the setRotationDuration method is called after this is done, then it will have no effect
-      mAnimator.setDuration(mRotationDuration);
-      // use a LinearInterpolator to make the animation smooth
-      mAnimator.setInterpolator(new LinearInterpolator());
-      // add an update listener for updating the necessary values
-      mAnimator.addUpdateListener(new AnimatorUpdateListener(){
-        @Override
-        public void onAnimationUpdate(ValueAnimator animator) {
-          // put the animated value into mCurrentRotationAngle
-          mCurrentRotationAngle = (Float) animator.getAnimatedValue();
-          // invalidate the view so that it draws itself again
-          invalidate();
-        }
-      });
-      // make the animation loop infinitely
-      mAnimator.setRepeatCount(ValueAnimator.INFINITE);
-      // make the animation restart from 0 when done
-      mAnimator.setRepeatMode(ValueAnimator.RESTART);
-      // start the animation
-      mAnimator.start();
-    }
-    
-    /**
-     * Rotation state needs a background and all circles to be drawn
-     */
-    @Override
-    public void drawState(Canvas canvas){
-      drawBackground(canvas);
-      drawCircles(canvas);
-    }
-    
-    /**
-     * The animator needs to be canceled on state change, otherwise the rotation angle will keep changing and the view will leak
-     * even after it is destroyed. This method takes care of that, but is not a very nice way of doing so since it requires typecasting
-     * in the splashAndDisappear method
-     */
-    public void cancel(){
-      mAnimator.cancel();
-      mAnimator = null;
+  private boolean coversWindow(){
+    getWindowVisibleDisplayFrame(mWindowFrame);
+    getLocationOnScreen(mLocation);
+    boolean covers = !mWindowFrame.isEmpty() && mLocation[0] <= mWindowFrame.left && mLocation[1] <= mWindowFrame.top
+        && mLocation[0] + getWidth() >= mWindowFrame.right && mLocation[1] + getHeight() >= mWindowFrame.bottom;
+    mWindowNotCovered = !covers;
+    return covers;
+  }
+  
+  /**
+   * The window of the Activity that this view was created for, or null if it was created with another context, in which case the
+   * window background is left alone
+   */
+  private Window findWindow(){
+    Context context = getContext();
+    while(context instanceof ContextWrapper){
+      if(context instanceof Activity){
+        return ((Activity) context).getWindow();
+      }
+      context = ((ContextWrapper) context).getBaseContext();
     }
+    return null;
   }
   
   /**
-   * In this state an animator is used to make the circles bounce back a little and then fall into the center of the view.
-   * This is the first state of the splash animation
-   * @author yildizkabaran
-   *
+   * The view set with setRevealTarget, or the sibling drawn right below this view
    */
-  private class MergingState extends SplashState {
-    
-    /**
-     * The constructor takes care of creating, setting up, and starting the animator
-     */
-    public MergingState(){
-      // Make an animator from 0 (center) to rotation radius, the animator will be used in reverse
-      ValueAnimator animator = ValueAnimator.ofFloat(0, mRotationRadius);
-      // set the duration to a third of the total duration
-      animator.setDuration(mSplashDuration / 3);
-      // use an overshoot interpolator to make the circles bounce out before falling into 0
-      animator.setInterpolator(new OvershootInterpolator(6F));
-      // add an update listener to update draw
-      animator.addUpdateListener(new AnimatorUpdateListener(){
-        @Override
-        public void onAnimationUpdate(ValueAnimator animator) {
-          // get the animation value into current rotation radius for the circles to be drawn at
-          mCurrentRotationRadius = (Float) animator.getAnimatedValue();
-          // invalidate the view to force draw
-          invalidate();
-          
-          // if we have a listener, then update it during the first third of the animation
-          // this is bad practice since adding another animation state will require this code to be changed
-          if(mSplashListener != null){
-            mSplashListener.onUpdate((float) animator.getCurrentPlayTime() / animator.getDuration() / 3);
-          }
-        }
-      });
-      // we need some animation state listeners
-      animator.addListener(new AnimatorListenerAdapter(){
-        @Override
-        public void onAnimationStart(Animator animator){
-          // inform the listener of splash start, since this is the first splash state
-          if(mSplashListener != null){
-            mSplashListener.onStart();
-          }
-        }
-        
-        @Override
-        public void onAnimationEnd(Animator animator){
-          // change the state to the next splash state in line
-          mState = new SingularityState();
-        }
-      });
-      // run the animation in reverse to get the bounce out then back in effect
-      animator.reverse();
+  private View findRevealTarget(){
+    if(mRevealTarget != null){
+      return mRevealTarget;
     }
-
-    /**
-     * Merging requires the background and all circles to be drawn
-     */
-    @Override
-    public void drawState(Canvas canvas){
-      drawBackground(canvas);
-      drawCircles(canvas);
+    if(!(getParent() instanceof ViewGroup)){
+      return null;
     }
+    ViewGroup parent = (ViewGroup) getParent();
+    int index = parent.indexOfChild(this);
+    return index > 0 ? parent.getChildAt(index - 1) : null;
   }
   
   /**
-   * This state is used to make the only circle visible at this time get a little larger then disappear into a single point
-   * @author yildizkabaran
-   *
+   * Called right before first onDraw takes place and sets the initial animation state.
+   * This is necessary for all parameters to be set correctly, and also makes sure that the frame clock only starts once the view is actually drawn.
    */
-  private class SingularityState extends SplashState {
+  private void handleFirstDraw(){
+    mFirstDrawHandled = true;
+    // since this is the first draw the state is rotation state, unless it was restored. Starting the drawable starts its frame clock
+    // as well and it keeps running until the splash is over
+    mDrawable.start();
+  }
+  
+  /**
+   * Draws the current state. The actual drawing is delegated to the drawable.
+   */
+  @Override
+  protected void onDraw(Canvas canvas){
+    if(mFirstDrawHandled){
+      mDrawable.draw(canvas);
+      return;
+    }
     
-    /**
-     * The constructor takes care of creating, setting up, and starting the animator
-     */
-    public SingularityState(){
-      // get a value animator from 0 to the radius of each circle, the animator will be used in reverse
-      ValueAnimator animator = ValueAnimator.ofFloat(0, mCircleRadius);
-      // set the duration to a third of the total duration
-      animator.setDuration(mSplashDuration / 3);
-      // use an overshoot interpolator to make the circles bounce out before falling into 0
-      animator.setInterpolator(new OvershootInterpolator(6F));
-      // add an update listener to update draw
-      animator.addUpdateListener(new AnimatorUpdateListener(){
-        @Override
-        public void onAnimationUpdate(ValueAnimator animator) {
-          // get the animation value into current single circle radius
-          mCurrentSingleCircleRadius = (Float) animator.getAnimatedValue();
-          // invalidate the view to force draw
-          invalidate();
-          
-          // if we have a listener, then update it during the second third of the animation
-          // this is bad practice since adding another animation state will require this code to be changed
-          if(mSplashListener != null){
-            mSplashListener.onUpdate(1F/3 + (float) animator.getCurrentPlayTime() / animator.getDuration() / 3);
-          }
-        }
-      });
-      animator.addListener(new AnimatorListenerAdapter(){
-        @Override
-        public void onAnimationEnd(Animator animator){
-          // change the state to the next splash state in line
-          mState = new ExpandingState();
-        }
-      });
-      // run the animation in reverse to get the enlarge then disappear
-      animator.reverse();
+    // the first draw is a startup milestone
+    SplashTrace.beginSection("SplashView.firstDraw");
+    handleFirstDraw();
+    mDrawable.draw(canvas);
+    SplashTrace.endSection();
+    // once the first frame of the splash is up, what it covers can stop drawing
+    post(mUpdateCoveredDrawsRunnable);
+    SplashTrace.mark(SplashTrace.MILESTONE_SPLASH_FIRST_DRAW);
+  }
+  
+  /**
+   * Saves the phase and the time spent in it, so that a recreated view continues the animation instead of starting over. The view
+   * needs an id for its state to be saved
+   */
+  @Override
+  protected Parcelable onSaveInstanceState(){
+    Parcelable superState = super.onSaveInstanceState();
+    if(!mDrawable.isInitialized()){
+      return superState;
     }
     
-    /**
-     * SinglularityState requires a background and a single circle to be drawn
-     */
-    @Override
-    public void drawState(Canvas canvas){
-      drawBackground(canvas);
-      drawSingleCircle(canvas);
+    SavedState state = new SavedState(superState);
+    state.phase = mDrawable.getPhase();
+    state.phaseElapsedNanos = mDrawable.getPhaseElapsedNanos();
+    state.rotationAngle = mDrawable.getRotationAngle();
+    state.splashPending = mDrawable.isSplashPending();
+    return state;
+  }
+  
+  @Override
+  protected void onRestoreInstanceState(Parcelable state){
+    if(!(state instanceof SavedState)){
+      super.onRestoreInstanceState(state);
+      return;
     }
+    
+    SavedState savedState = (SavedState) state;
+    super.onRestoreInstanceState(savedState.getSuperState());
+    mDrawable.restore(savedState.phase, savedState.phaseElapsedNanos, savedState.rotationAngle, savedState.splashPending);
   }
   
   /**
-   * This state uses an animator to draw an increasingly larger transparent hole in the view
+   * The animation state of a SplashView, enough to continue the animation from the same frame
    * @author yildizkabaran
    *
    */
-  private class ExpandingState extends SplashState {
+  static class SavedState extends BaseSavedState {
+    int phase;
+    long phaseElapsedNanos;
+    float rotationAngle;
+    boolean splashPending;
     
-    /**
-     * The constructor takes care of creating, setting up, and starting the animator
-     */
-    public ExpandingState(){   
-      // get an animator from 0 to the half diagonal distance of the view
-      ValueAnimator animator = ValueAnimator.ofFloat(0, mDiagonalDist);
-      // set the duration to a third of the total duration
-      animator.setDuration(mSplashDuration / 3);
-      // use a decelerate interpolator to give the effect that the transparent hole went into a bang
-      animator.setInterpolator(new DecelerateInterpolator());
-      // add an update listener to update draw
-      animator.addUpdateListener(new AnimatorUpdateListener(){
-        @Override
-        public void onAnimationUpdate(ValueAnimator animator) {
-          // get the animated value into the radius of the transparent hole
-          mHoleRadius = (Float) animator.getAnimatedValue();
-          // invalidate the view to force draw
-          invalidate();
-
-          // if we have a listener, then update it during the last third of the animation
-          // this is bad practice since adding another animation state will require this code to be changed
-          if(mSplashListener != null){
-            mSplashListener.onUpdate(2F/3 + (float) animator.getCurrentPlayTime() / animator.getDuration() / 3);
-          }
-        }
-      });
-      animator.addListener(new AnimatorListenerAdapter(){
-        @Override
-        public void onAnimationEnd(Animator animator){
-          // the splash is over so remove from parent if needed
-          removeFromParentIfNecessary();
-          
-          // notify the listener that we are done
-          if(mSplashListener != null){
-            mSplashListener.onEnd();
-          }
-        }
-      });
-      // start the animation in forward direction
-      animator.start();
+    SavedState(Parcelable superState){
+      super(superState);
+    }
+    
+    private SavedState(Parcel in){
+      super(in);
+      phase = in.readInt();
+      phaseElapsedNanos = in.readLong();
+      rotationAngle = in.readFloat();
+      splashPending = in.readInt() != 0;
     }
     
-    /**
-     * The ExpandingState only needs a background
-     */
     @Override
-    public void drawState(Canvas canvas){
-      drawBackground(canvas);
+    public void writeToParcel(Parcel out, int flags){
+      super.writeToParcel(out, flags);
+      out.writeInt(phase);
+      out.writeLong(phaseElapsedNanos);
+      out.writeFloat(rotationAngle);
+      out.writeInt(splashPending ? 1 : 0);
     }
+    
+    public static final Parcelable.Creator<SavedState> CREATOR = new Parcelable.Creator<SavedState>(){
+      @Override
+      public SavedState createFromParcel(Parcel in){
+        return new SavedState(in);
+      }
+      
+      @Override
+      public SavedState[] newArray(int size){
+        return new SavedState[size];
+      }
+    };
   }
 }
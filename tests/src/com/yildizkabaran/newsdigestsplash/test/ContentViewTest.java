@@ -0,0 +1,112 @@
+package com.yildizkabaran.newsdigestsplash.test;
+
+import android.content.Context;
+import android.graphics.BitmapFactory;
+import android.os.SystemClock;
+import android.test.InstrumentationTestCase;
+import android.util.Log;
+import android.view.View;
+
+import com.yildizkabaran.newsdigestsplash.R;
+import com.yildizkabaran.newsdigestsplash.content.DigestContent;
+import com.yildizkabaran.newsdigestsplash.view.ContentView;
+
+/**
+ * Checks the time that ContentView takes to decode the image of the sample content, and the memory that the decoded bitmap uses.
+ * The view is laid out without ever being attached to a window, so the decode result has to make it back to the UI thread on its own
+ * @author yildizkabaran
+ *
+ */
+public class ContentViewTest extends InstrumentationTestCase {
+  
+  private static final String TAG = "ContentViewTest";
+  
+  /** define the size of the view, smaller than the image so that it is downsampled **/
+  private static final int VIEW_WIDTH = 480; // px
+  private static final int VIEW_HEIGHT = 800; // px
+  
+  /** define the budgets **/
+  private static final long MAX_DECODE_TIME = 300; // ms, on the background thread
+  private static final int BYTES_PER_PIXEL = 4; // ARGB_8888
+  private static final long DECODE_TIMEOUT = 5000; // ms
+  private static final long POLL_INTERVAL = 10; // ms
+  
+  private ContentView mContentView;
+  
+  @Override
+  protected void setUp() throws Exception {
+    super.setUp();
+    final Context context = getInstrumentation().getTargetContext();
+    getInstrumentation().runOnMainSync(new Runnable(){
+      @Override
+      public void run(){
+        mContentView = new ContentView(context, new DigestContent(R.drawable.content, System.currentTimeMillis()));
+        mContentView.measure(View.MeasureSpec.makeMeasureSpec(VIEW_WIDTH, View.MeasureSpec.EXACTLY),
+            View.MeasureSpec.makeMeasureSpec(VIEW_HEIGHT, View.MeasureSpec.EXACTLY));
+        mContentView.layout(0, 0, VIEW_WIDTH, VIEW_HEIGHT);
+      }
+    });
+  }
+  
+  @Override
+  protected void tearDown() throws Exception {
+    getInstrumentation().runOnMainSync(new Runnable(){
+      @Override
+      public void run(){
+        mContentView.setContent(null);
+      }
+    });
+    mContentView = null;
+    super.tearDown();
+  }
+  
+  public void testImageIsShownWithoutBeingAttached(){
+    waitForImage();
+    assertTrue(mContentView.getBitmapByteCount() > 0);
+  }
+  
+  public void testDecodeTimeIsWithinBudget(){
+    waitForImage();
+    long decodeMillis = mContentView.getLastDecodeMillis();
+    Log.i(TAG, "decoded in " + decodeMillis + " ms with sample size " + mContentView.getLastSampleSize());
+    assertTrue("decode took " + decodeMillis + " ms", decodeMillis <= MAX_DECODE_TIME);
+  }
+  
+  public void testBitmapIsDownsampledToTheView(){
+    waitForImage();
+    BitmapFactory.Options options = new BitmapFactory.Options();
+    options.inScaled = false;
+    options.inJustDecodeBounds = true;
+    BitmapFactory.decodeResource(getInstrumentation().getTargetContext().getResources(), R.drawable.content, options);
+    long fullByteCount = (long) options.outWidth * options.outHeight * BYTES_PER_PIXEL;
+    
+    // the largest power of two downsampling still covers the view, so the bitmap is less than twice the view in each dimension
+    long maxByteCount = (long) VIEW_WIDTH * 2 * VIEW_HEIGHT * 2 * BYTES_PER_PIXEL;
+    int byteCount = mContentView.getBitmapByteCount();
+    Log.i(TAG, "bitmap uses " + byteCount + " bytes, the full size image would use " + fullByteCount + " bytes");
+    assertTrue("sample size " + mContentView.getLastSampleSize(), mContentView.getLastSampleSize() > 1);
+    assertTrue("bitmap uses " + byteCount + " bytes", byteCount < maxByteCount);
+    assertTrue("bitmap uses " + byteCount + " bytes", byteCount < fullByteCount);
+  }
+  
+  /**
+   * Waits until the view shows the decoded image, fails if it does not within the timeout
+   */
+  private void waitForImage(){
+    final boolean[] ready = new boolean[1];
+    long deadline = SystemClock.uptimeMillis() + DECODE_TIMEOUT;
+    while(SystemClock.uptimeMillis() < deadline){
+      getInstrumentation().runOnMainSync(new Runnable(){
+        @Override
+        public void run(){
+          ready[0] = mContentView.isImageReady();
+        }
+      });
+      if(ready[0]){
+        return;
+      }
+      SystemClock.sleep(POLL_INTERVAL);
+    }
+    fail("the image was not decoded within " + DECODE_TIMEOUT + " ms");
+  }
+}
@@ -0,0 +1,232 @@
+package com.yildizkabaran.newsdigestsplash.test;
+
+import java.nio.ByteBuffer;
+
+import junit.framework.TestCase;
+import android.graphics.Bitmap;
+import android.graphics.Canvas;
+import android.graphics.Color;
+import android.graphics.PixelFormat;
+import android.graphics.PorterDuff;
+import android.media.Image;
+import android.media.ImageReader;
+import android.os.Build;
+import android.os.SystemClock;
+import android.util.Log;
+import android.view.Surface;
+
+import com.yildizkabaran.newsdigestsplash.view.SplashDrawable;
+import com.yildizkabaran.newsdigestsplash.view.SplashTimeline;
+import com.yildizkabaran.newsdigestsplash.view.SplashView;
+
+/**
+ * Checks the hole mode that HOLE_MODE_AUTO picks on software and hardware canvases, and that every mode draws the same hole on a
+ * frame of the expanding phase. The frames are compared pixel by pixel, so the results do not depend on how busy the device is.
+ * Hardware canvases are taken from a Surface, which needs API 23, the hardware checks pass without checking anything below that
+ * @author yildizkabaran
+ *
+ */
+public class HoleModeTest extends TestCase {
+  
+  private static final String TAG = "HoleModeTest";
+  
+  /** define the frame that is drawn **/
+  private static final int FRAME_WIDTH = 720; // px
+  private static final int FRAME_HEIGHT = 1280; // px
+  private static final long SPLASH_DURATION = 1200; // ms
+  private static final long EXPANDING_ELAPSED = 100; // ms into the expanding phase, the hole is still small
+  
+  /** define how close the modes have to draw the hole **/
+  private static final int CHANNEL_TOLERANCE = 8; // out of 255, for the anti aliased edges
+  private static final float MAX_DIFFERENT_PIXEL_FRACTION = 0.01F; // the clipped edge is not anti aliased at all
+  
+  /** define how long to wait for the hardware renderer **/
+  private static final long HARDWARE_FRAME_TIMEOUT = 2000; // ms
+  private static final long POLL_INTERVAL = 10; // ms
+  
+  private Bitmap mFrame;
+  private Canvas mCanvas;
+  
+  @Override
+  protected void setUp() throws Exception {
+    super.setUp();
+    mFrame = Bitmap.createBitmap(FRAME_WIDTH, FRAME_HEIGHT, Bitmap.Config.ARGB_8888);
+    mCanvas = new Canvas(mFrame);
+  }
+  
+  @Override
+  protected void tearDown() throws Exception {
+    mFrame.recycle();
+    mFrame = null;
+    mCanvas = null;
+    super.tearDown();
+  }
+  
+  public void testAutoUsesPathOnSoftwareCanvas(){
+    SplashDrawable drawable = createDrawable(SplashView.HOLE_MODE_AUTO);
+    assertFalse(mCanvas.isHardwareAccelerated());
+    assertEquals(SplashView.HOLE_MODE_PATH, drawable.resolveHoleMode(mCanvas));
+  }
+  
+  public void testAutoUsesClipOnHardwareCanvas(){
+    if(Build.VERSION.SDK_INT < Build.VERSION_CODES.M){
+      Log.i(TAG, "no hardware canvas outside of a window before API 23, skipped");
+      return;
+    }
+    
+    SplashDrawable drawable = createDrawable(SplashView.HOLE_MODE_AUTO);
+    ImageReader reader = ImageReader.newInstance(FRAME_WIDTH, FRAME_HEIGHT, PixelFormat.RGBA_8888, 1);
+    Surface surface = reader.getSurface();
+    try {
+      Canvas canvas = surface.lockHardwareCanvas();
+      try {
+        assertTrue(canvas.isHardwareAccelerated());
+        assertEquals(SplashView.HOLE_MODE_CLIP, drawable.resolveHoleMode(canvas));
+      } finally {
+        surface.unlockCanvasAndPost(canvas);
+      }
+    } finally {
+      surface.release();
+      reader.close();
+    }
+  }
+  
+  public void testAutoDrawsLikePathInSoftware(){
+    int[] autoPixels = drawPixels(SplashView.HOLE_MODE_AUTO);
+    int[] pathPixels = drawPixels(SplashView.HOLE_MODE_PATH);
+    assertEquals(0, countDifferentPixels(autoPixels, pathPixels));
+  }
+  
+  public void testAutoDrawsTheSameHoleOnHardwareCanvas(){
+    if(Build.VERSION.SDK_INT < Build.VERSION_CODES.M){
+      Log.i(TAG, "no hardware canvas outside of a window before API 23, skipped");
+      return;
+    }
+    
+    int[] strokePixels = drawPixels(SplashView.HOLE_MODE_STROKE);
+    int[] hardwarePixels = drawHardwarePixels(SplashView.HOLE_MODE_AUTO);
+    int maxDifferentPixels = (int) (FRAME_WIDTH * FRAME_HEIGHT * MAX_DIFFERENT_PIXEL_FRACTION);
+    int difference = countDifferentPixels(hardwarePixels, strokePixels);
+    Log.i(TAG, "auto on a hardware canvas differs in " + difference + " pixels");
+    assertTrue("auto on a hardware canvas differs from stroke in " + difference + " pixels", difference <= maxDifferentPixels);
+  }
+  
+  public void testAllModesDrawTheSameHole(){
+    int[] strokePixels = drawPixels(SplashView.HOLE_MODE_STROKE);
+    int maxDifferentPixels = (int) (FRAME_WIDTH * FRAME_HEIGHT * MAX_DIFFERENT_PIXEL_FRACTION);
+    
+    int pathDifference = countDifferentPixels(drawPixels(SplashView.HOLE_MODE_PATH), strokePixels);
+    assertTrue("path differs from stroke in " + pathDifference + " pixels", pathDifference <= maxDifferentPixels);
+    
+    int clipDifference = countDifferentPixels(drawPixels(SplashView.HOLE_MODE_CLIP), strokePixels);
+    Log.i(TAG, "path differs in " + pathDifference + " pixels, clip differs in " + clipDifference + " pixels");
+    assertTrue("clip differs from stroke in " + clipDifference + " pixels", clipDifference <= maxDifferentPixels);
+  }
+  
+  /**
+   * Creates a drawable that shows the same frame of the expanding phase every time it is drawn
+   * @param holeMode
+   * @return
+   */
+  private SplashDrawable createDrawable(int holeMode){
+    SplashDrawable drawable = new SplashDrawable();
+    drawable.setSplashBackgroundColor(Color.WHITE);
+    drawable.setCircleColors(new int[]{ Color.RED, Color.GREEN, Color.BLUE });
+    drawable.setSplashDuration(SPLASH_DURATION);
+    drawable.setHoleMode(holeMode);
+    drawable.setBounds(0, 0, FRAME_WIDTH, FRAME_HEIGHT);
+    drawable.restore(SplashTimeline.PHASE_EXPANDING, EXPANDING_ELAPSED * 1000000L, 0F, false);
+    return drawable;
+  }
+  
+  private int[] drawPixels(int holeMode){
+    SplashDrawable drawable = createDrawable(holeMode);
+    try {
+      mFrame.eraseColor(Color.TRANSPARENT);
+      drawable.draw(mCanvas);
+    } finally {
+      drawable.release();
+    }
+    int[] pixels = new int[FRAME_WIDTH * FRAME_HEIGHT];
+    mFrame.getPixels(pixels, 0, FRAME_WIDTH, 0, 0, FRAME_WIDTH, FRAME_HEIGHT);
+    return pixels;
+  }
+  
+  /**
+   * Draws the frame onto the hardware canvas of a surface and reads the rendered pixels back from the image it produces
+   * @param holeMode
+   * @return
+   */
+  private int[] drawHardwarePixels(int holeMode){
+    SplashDrawable drawable = createDrawable(holeMode);
+    ImageReader reader = ImageReader.newInstance(FRAME_WIDTH, FRAME_HEIGHT, PixelFormat.RGBA_8888, 1);
+    Surface surface = reader.getSurface();
+    try {
+      Canvas canvas = surface.lockHardwareCanvas();
+      try {
+        canvas.drawColor(Color.TRANSPARENT, PorterDuff.Mode.CLEAR);
+        drawable.draw(canvas);
+      } finally {
+        surface.unlockCanvasAndPost(canvas);
+      }
+    
+      // the frame is rendered on the render thread of the process, wait for it to reach the reader
+      Image image = null;
+      long deadline = SystemClock.uptimeMillis() + HARDWARE_FRAME_TIMEOUT;
+      while(image == null && SystemClock.uptimeMillis() < deadline){
+        image = reader.acquireLatestImage();
+        if(image == null){
+          SystemClock.sleep(POLL_INTERVAL);
+        }
+      }
+      assertNotNull("the hardware frame was not rendered within " + HARDWARE_FRAME_TIMEOUT + " ms", image);
+      try {
+        return readPixels(image);
+      } finally {
+        image.close();
+      }
+    } finally {
+      drawable.release();
+      surface.release();
+      reader.close();
+    }
+  }
+  
+  /**
+   * Converts the RGBA bytes of the image into color ints, the same layout as Bitmap.getPixels. The surface keeps premultiplied
+   * colors, which only differ from the bitmap colors on the anti aliased edges
+   * @param image
+   * @return
+   */
+  private static int[] readPixels(Image image){
+    Image.Plane plane = image.getPlanes()[0];
+    ByteBuffer buffer = plane.getBuffer();
+    int pixelStride = plane.getPixelStride();
+    int rowStride = plane.getRowStride();
+    int[] pixels = new int[FRAME_WIDTH * FRAME_HEIGHT];
+    for(int y=0; y<FRAME_HEIGHT; ++y){
+      for(int x=0; x<FRAME_WIDTH; ++x){
+        int offset = y * rowStride + x * pixelStride;
+        pixels[y * FRAME_WIDTH + x] = Color.argb(buffer.get(offset + 3) & 0xff, buffer.get(offset) & 0xff,
+            buffer.get(offset + 1) & 0xff, buffer.get(offset + 2) & 0xff);
+      }
+    }
+    return pixels;
+  }
+  
+  private static int countDifferentPixels(int[] pixels1, int[] pixels2){
+    int count = 0;
+    for(int i=0; i<pixels1.length; ++i){
+      int color1 = pixels1[i];
+      int color2 = pixels2[i];
+      if(color1 != color2
+          && (Math.abs(Color.alpha(color1) - Color.alpha(color2)) > CHANNEL_TOLERANCE
+          || Math.abs(Color.red(color1) - Color.red(color2)) > CHANNEL_TOLERANCE
+          || Math.abs(Color.green(color1) - Color.green(color2)) > CHANNEL_TOLERANCE
+          || Math.abs(Color.blue(color1) - Color.blue(color2)) > CHANNEL_TOLERANCE)){
+        count++;
+      }
+    }
+    return count;
+  }
+}
@@ -0,0 +1,138 @@
+package com.yildizkabaran.newsdigestsplash.test;
+
+import junit.framework.TestCase;
+import android.graphics.Bitmap;
+import android.graphics.Canvas;
+import android.graphics.Color;
+import android.os.Debug;
+
+import com.yildizkabaran.newsdigestsplash.view.SplashDrawable;
+import com.yildizkabaran.newsdigestsplash.view.SplashTimeline;
+import com.yildizkabaran.newsdigestsplash.view.SplashView;
+
+/**
+ * Steps a SplashDrawable through every phase, drawing each step into a bitmap canvas while the allocation counting of the runtime is
+ * on, and fails if a draw allocates any object on the test thread. This covers the drawing of the background, the circles, the
+ * particles and the sprites, which the JVM tests of the benchmark module can not run. Each step is drawn once before it is counted,
+ * so that what the first draw sets up and later draws reuse, like the sprite atlas, is not counted
+ * @author yildizkabaran
+ *
+ */
+@SuppressWarnings("deprecation")
+public class SplashDrawAllocationTest extends TestCase {
+  
+  /** define the frame that is drawn **/
+  private static final int FRAME_WIDTH = 720; // px
+  private static final int FRAME_HEIGHT = 1280; // px
+  private static final long ROTATION_DURATION = 1200; // ms
+  private static final long SPLASH_DURATION = 1200; // ms
+  private static final int[] CIRCLE_COLORS = { Color.RED, Color.GREEN, Color.BLUE };
+  private static final int STEPS_PER_PHASE = 8;
+  private static final int PARTICLES_PER_COLOR = 50;
+  
+  /** define the budget **/
+  private static final int DRAW_ALLOCATION_BUDGET = 0; // objects
+  
+  private Bitmap mFrame;
+  private Canvas mCanvas;
+  
+  @Override
+  protected void setUp() throws Exception {
+    super.setUp();
+    mFrame = Bitmap.createBitmap(FRAME_WIDTH, FRAME_HEIGHT, Bitmap.Config.ARGB_8888);
+    mCanvas = new Canvas(mFrame);
+    Debug.startAllocCounting();
+  }
+  
+  @Override
+  protected void tearDown() throws Exception {
+    Debug.stopAllocCounting();
+    mFrame.recycle();
+    mFrame = null;
+    mCanvas = null;
+    super.tearDown();
+  }
+  
+  public void testRingDrawsWithinBudget(){
+    SplashDrawable drawable = createDrawable(SplashView.HOLE_MODE_AUTO);
+    checkAllPhases(drawable);
+  }
+  
+  public void testStrokeHoleDrawsWithinBudget(){
+    SplashDrawable drawable = createDrawable(SplashView.HOLE_MODE_STROKE);
+    checkAllPhases(drawable);
+  }
+  
+  public void testClipHoleDrawsWithinBudget(){
+    SplashDrawable drawable = createDrawable(SplashView.HOLE_MODE_CLIP);
+    checkAllPhases(drawable);
+  }
+  
+  public void testSpritesDrawWithinBudget(){
+    SplashDrawable drawable = createDrawable(SplashView.HOLE_MODE_AUTO);
+    drawable.setUseCircleSprites(true);
+    checkAllPhases(drawable);
+  }
+  
+  public void testParticlesDrawWithinBudget(){
+    SplashDrawable drawable = createDrawable(SplashView.HOLE_MODE_AUTO);
+    drawable.setParticlesPerColor(PARTICLES_PER_COLOR);
+    checkAllPhases(drawable);
+  }
+  
+  private SplashDrawable createDrawable(int holeMode){
+    SplashDrawable drawable = new SplashDrawable();
+    drawable.setSplashBackgroundColor(Color.WHITE);
+    drawable.setCircleColors(CIRCLE_COLORS);
+    drawable.setRotationDuration(ROTATION_DURATION);
+    drawable.setSplashDuration(SPLASH_DURATION);
+    drawable.setHoleMode(holeMode);
+    drawable.setBounds(0, 0, FRAME_WIDTH, FRAME_HEIGHT);
+    return drawable;
+  }
+  
+  /**
+   * Draws every step of every phase once to warm up, then draws them all again and checks the objects each draw allocates
+   * @param drawable
+   */
+  private void checkAllPhases(SplashDrawable drawable){
+    try {
+      for(int phase=SplashTimeline.PHASE_ROTATION; phase<=SplashTimeline.PHASE_EXPANDING; ++phase){
+        for(int step=0; step<STEPS_PER_PHASE; ++step){
+          restoreStep(drawable, phase, step);
+          drawable.draw(mCanvas);
+        }
+      }
+    
+      for(int phase=SplashTimeline.PHASE_ROTATION; phase<=SplashTimeline.PHASE_EXPANDING; ++phase){
+        for(int step=0; step<STEPS_PER_PHASE; ++step){
+          restoreStep(drawable, phase, step);
+          int allocations = countDrawAllocations(drawable);
+          assertTrue("step " + step + " of phase " + phase + " allocated " + allocations + " objects",
+              allocations <= DRAW_ALLOCATION_BUDGET);
+        }
+      }
+    } finally {
+      drawable.release();
+    }
+  }
+  
+  /**
+   * Puts the drawable at the given step of the phase, the steps are spread evenly over the phase
+   * @param drawable
+   * @param phase
+   * @param step
+   */
+  private static void restoreStep(SplashDrawable drawable, int phase, int step){
+    long phaseDuration = phase == SplashTimeline.PHASE_ROTATION ? ROTATION_DURATION : SPLASH_DURATION / SplashTimeline.NUM_SPLASH_PHASES;
+    long elapsedNanos = phaseDuration * 1000000L * step / STEPS_PER_PHASE;
+    drawable.restore(phase, elapsedNanos, 0F, false);
+  }
+  
+  private int countDrawAllocations(SplashDrawable drawable){
+    mFrame.eraseColor(Color.TRANSPARENT);
+    Debug.resetThreadAllocCount();
+    drawable.draw(mCanvas);
+    return Debug.getThreadAllocCount();
+  }
+}
@@ -0,0 +1,237 @@
+package com.yildizkabaran.newsdigestsplash.test;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Arrays;
+
+import android.content.Context;
+import android.graphics.Bitmap;
+import android.graphics.BitmapFactory;
+import android.graphics.Canvas;
+import android.graphics.Color;
+import android.test.InstrumentationTestCase;
+import android.util.Log;
+
+import com.yildizkabaran.newsdigestsplash.view.SplashDrawable;
+import com.yildizkabaran.newsdigestsplash.view.SplashTimeline;
+
+/**
+ * Steps a SplashDrawable through a frame of each of the four phases, draws every frame into a bitmap and compares it against the
+ * golden frame of that phase in the assets of this test project, with a tolerance for the anti aliased edges. The time that each
+ * frame takes to draw is logged so that it can be followed over time. A frame that does not match is written to the external files
+ * directory of the app under golden, so that it can be pulled and looked at, or copied over the golden frame if the change was meant.
+ * The golden frames are rendered from SplashTimeline and SplashGeometry by GoldenFrameWriter in the benchmark module, the frames
+ * defined here have to be kept in sync with it
+ * @author yildizkabaran
+ *
+ */
+public class SplashGoldenFrameTest extends InstrumentationTestCase {
+  
+  private static final String TAG = "SplashGoldenFrameTest";
+  
+  /** define the splash that is drawn, in px so that the frames do not depend on the density of the device **/
+  private static final int FRAME_WIDTH = 360; // px
+  private static final int FRAME_HEIGHT = 640; // px
+  private static final float CIRCLE_RADIUS = 12F; // px
+  private static final float ROTATION_RADIUS = 60F; // px
+  private static final long ROTATION_DURATION = 1200; // ms
+  private static final long SPLASH_DURATION = 1200; // ms
+  private static final int SPLASH_BG_COLOR = 0xFFF8F6EC;
+  private static final int[] CIRCLE_COLORS = { 0xFF00E099, 0xFFFF3892, 0xFFFF9600, 0xFF02D1AC, 0xFFFFD200, 0xFF00C6FF };
+  
+  /** define the frame of each phase, the rotation angle of the splash phases is the angle the rotation frame is at **/
+  private static final long ROTATION_ELAPSED = 150; // ms
+  private static final long SPLASH_PHASE_ELAPSED = 100; // ms
+  private static final float SPLASH_ROTATION_ANGLE = (float) (Math.PI / 4); // radians
+  
+  /** define how close a frame has to be to its golden frame **/
+  private static final int CHANNEL_TOLERANCE = 16; // out of 255, for the anti aliased edges
+  private static final float MAX_DIFFERENT_PIXEL_FRACTION = 0.01F;
+  
+  /** define how the draw time is measured **/
+  private static final int WARM_UP_DRAWS = 5;
+  private static final int MEASURED_DRAWS = 30;
+  
+  private static final String GOLDEN_DIR = "golden";
+  private static final String[] PHASE_NAMES = { "rotation", "merging", "singularity", "expanding" };
+  
+  private Bitmap mFrame;
+  private Canvas mCanvas;
+  
+  @Override
+  protected void setUp() throws Exception {
+    super.setUp();
+    mFrame = Bitmap.createBitmap(FRAME_WIDTH, FRAME_HEIGHT, Bitmap.Config.ARGB_8888);
+    mCanvas = new Canvas(mFrame);
+  }
+  
+  @Override
+  protected void tearDown() throws Exception {
+    mFrame.recycle();
+    mFrame = null;
+    mCanvas = null;
+    super.tearDown();
+  }
+  
+  public void testRotationFrame() throws IOException {
+    checkFrame(SplashTimeline.PHASE_ROTATION, ROTATION_ELAPSED, 0F);
+  }
+  
+  public void testMergingFrame() throws IOException {
+    checkFrame(SplashTimeline.PHASE_MERGING, SPLASH_PHASE_ELAPSED, SPLASH_ROTATION_ANGLE);
+  }
+  
+  public void testSingularityFrame() throws IOException {
+    checkFrame(SplashTimeline.PHASE_SINGULARITY, SPLASH_PHASE_ELAPSED, SPLASH_ROTATION_ANGLE);
+  }
+  
+  public void testExpandingFrame() throws IOException {
+    checkFrame(SplashTimeline.PHASE_EXPANDING, SPLASH_PHASE_ELAPSED, SPLASH_ROTATION_ANGLE);
+  }
+  
+  /**
+   * Draws the frame of the phase, logs the time it takes to draw, and compares it against its golden frame
+   * @param phase
+   * @param elapsed in ms
+   * @param rotationAngle
+   * @throws IOException
+   */
+  private void checkFrame(int phase, long elapsed, float rotationAngle) throws IOException {
+    String name = "splash_" + PHASE_NAMES[phase];
+    SplashDrawable drawable = createDrawable(phase, elapsed, rotationAngle);
+    try {
+      long drawNanos = measureDrawNanos(drawable);
+      Log.i(TAG, name + " draws in " + drawNanos + " ns");
+    } finally {
+      drawable.release();
+    }
+    
+    int[] pixels = new int[FRAME_WIDTH * FRAME_HEIGHT];
+    mFrame.getPixels(pixels, 0, FRAME_WIDTH, 0, 0, FRAME_WIDTH, FRAME_HEIGHT);
+    int[] goldenPixels = loadGoldenPixels(name);
+    int difference = countDifferentPixels(pixels, goldenPixels);
+    int maxDifferentPixels = (int) (FRAME_WIDTH * FRAME_HEIGHT * MAX_DIFFERENT_PIXEL_FRACTION);
+    if(difference > maxDifferentPixels){
+      writeFailedFrame(name);
+      fail(name + " differs from its golden frame in " + difference + " pixels");
+    }
+  }
+  
+  /**
+   * Creates a drawable that shows the given frame every time it is drawn
+   * @param phase
+   * @param elapsed in ms
+   * @param rotationAngle
+   * @return
+   */
+  private SplashDrawable createDrawable(int phase, long elapsed, float rotationAngle){
+    SplashDrawable drawable = new SplashDrawable();
+    drawable.setSplashBackgroundColor(SPLASH_BG_COLOR);
+    drawable.setCircleColors(CIRCLE_COLORS);
+    drawable.setCircleRadius(CIRCLE_RADIUS);
+    drawable.setRotationRadius(ROTATION_RADIUS);
+    drawable.setRotationDuration(ROTATION_DURATION);
+    drawable.setSplashDuration(SPLASH_DURATION);
+    drawable.setBounds(0, 0, FRAME_WIDTH, FRAME_HEIGHT);
+    drawable.restore(phase, elapsed * 1000000L, rotationAngle, false);
+    return drawable;
+  }
+  
+  /**
+   * The median time that it takes to draw the frame, the frame is left in the bitmap
+   * @param drawable
+   * @return
+   */
+  private long measureDrawNanos(SplashDrawable drawable){
+    for(int i=0; i<WARM_UP_DRAWS; ++i){
+      drawFrame(drawable);
+    }
+    long[] drawNanos = new long[MEASURED_DRAWS];
+    for(int i=0; i<MEASURED_DRAWS; ++i){
+      long startNanos = System.nanoTime();
+      drawFrame(drawable);
+      drawNanos[i] = System.nanoTime() - startNanos;
+    }
+    Arrays.sort(drawNanos);
+    return drawNanos[MEASURED_DRAWS / 2];
+  }
+  
+  private void drawFrame(SplashDrawable drawable){
+    mFrame.eraseColor(Color.TRANSPARENT);
+    drawable.draw(mCanvas);
+  }
+  
+  private int[] loadGoldenPixels(String name) throws IOException {
+    BitmapFactory.Options options = new BitmapFactory.Options();
+    options.inScaled = false;
+    options.inPreferredConfig = Bitmap.Config.ARGB_8888;
+    InputStream stream = getInstrumentation().getContext().getAssets().open(GOLDEN_DIR + "/" + name + ".png");
+    Bitmap golden;
+    try {
+      golden = BitmapFactory.decodeStream(stream, null, options);
+    } finally {
+      stream.close();
+    }
+    assertNotNull("the golden frame " + name + " could not be decoded", golden);
+    assertEquals(FRAME_WIDTH, golden.getWidth());
+    assertEquals(FRAME_HEIGHT, golden.getHeight());
+    
+    int[] pixels = new int[FRAME_WIDTH * FRAME_HEIGHT];
+    golden.getPixels(pixels, 0, FRAME_WIDTH, 0, 0, FRAME_WIDTH, FRAME_HEIGHT);
+    golden.recycle();
+    return pixels;
+  }
+  
+  /**
+   * Writes the frame in the bitmap out as a png, so that it can be compared with its golden frame by eye
+   * @param name
+   */
+  private void writeFailedFrame(String name){
+    Context context = getInstrumentation().getTargetContext();
+    File dir = context.getExternalFilesDir(GOLDEN_DIR);
+    if(dir == null || (!dir.isDirectory() && !dir.mkdirs())){
+      Log.w(TAG, "no external files directory to write " + name + " to");
+      return;
+    }
+    
+    File file = new File(dir, name + ".png");
+    try {
+      FileOutputStream stream = new FileOutputStream(file);
+      try {
+        mFrame.compress(Bitmap.CompressFormat.PNG, 100, stream);
+      } finally {
+        stream.close();
+      }
+      Log.i(TAG, "wrote the frame that failed to " + file.getAbsolutePath());
+    } catch(IOException e){
+      Log.w(TAG, "could not write " + file.getAbsolutePath(), e);
+    }
+  }
+  
+  /**
+   * Counts the pixels that differ by more than the tolerance in any channel. Pixels that are transparent in both are the same no
+   * matter their color
+   * @param pixels1
+   * @param pixels2
+   * @return
+   */
+  private static int countDifferentPixels(int[] pixels1, int[] pixels2){
+    int count = 0;
+    for(int i=0; i<pixels1.length; ++i){
+      int color1 = pixels1[i];
+      int color2 = pixels2[i];
+      if(color1 == color2 || (Color.alpha(color1) <= CHANNEL_TOLERANCE && Color.alpha(color2) <= CHANNEL_TOLERANCE)){
+        continue;
+      }
+      if(Math.abs(Color.alpha(color1) - Color.alpha(color2)) > CHANNEL_TOLERANCE
+          || Math.abs(Color.red(color1) - Color.red(color2)) > CHANNEL_TOLERANCE
+          || Math.abs(Color.green(color1) - Color.green(color2)) > CHANNEL_TOLERANCE
+          || Math.abs(Color.blue(color1) - Color.blue(color2)) > CHANNEL_TOLERANCE){
+        count++;
+      }
+    }
+    return count;
+  }
+}